@@ -0,0 +1,136 @@
+package org.technologybrewery.krausening.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aeonbits.owner.Config.DefaultValue;
+import org.aeonbits.owner.Config.HotReload;
+import org.aeonbits.owner.Config.HotReloadType;
+import org.aeonbits.owner.Config.Key;
+import org.aeonbits.owner.KrauseningConfig;
+import org.aeonbits.owner.KrauseningConfig.DisableValueCache;
+import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
+import org.aeonbits.owner.KrauseningConfigFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.technologybrewery.krausening.Krausening;
+
+/**
+ * Cost of calling the getters of a {@link KrauseningConfig}, from one thread
+ * and from many, for each way a config can be created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigGetterBenchmark {
+
+    /** Name of the first file of a {@link PropertyTree}. */
+    private static final String PROPERTIES_FILE_NAME = "benchmark-0.properties";
+
+    public enum Variant {
+        /** Proxy that converts every value on every call. */
+        UNCACHED_PROXY {
+            @Override
+            BenchmarkConfig create() {
+                return KrauseningConfigFactory.create(UncachedConfig.class);
+            }
+        },
+        /** Proxy with the default value cache. */
+        PROXY {
+            @Override
+            BenchmarkConfig create() {
+                return KrauseningConfigFactory.create(PlainConfig.class);
+            }
+        },
+        /** Proxy that checks for changed files on calls. */
+        SYNC_HOT_RELOAD_PROXY {
+            @Override
+            BenchmarkConfig create() {
+                return KrauseningConfigFactory.create(SyncHotReloadConfig.class);
+            }
+        },
+        /** Proxy returning results computed ahead of time. */
+        PRECOMPUTED {
+            @Override
+            BenchmarkConfig create() {
+                return KrauseningConfigFactory.createPrecomputed(PlainConfig.class);
+            }
+        };
+
+        abstract BenchmarkConfig create();
+    }
+
+    @Param
+    private Variant variant;
+
+    private PropertyTree tree;
+    private BenchmarkConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = PropertyTree.create(1, 20);
+        Krausening.getInstance().loadProperties();
+        config = variant.create();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tree.delete();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String getString() {
+        return config.getValue();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int getConverted() {
+        return config.getNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String getStringContended() {
+        return config.getValue();
+    }
+
+    public interface BenchmarkConfig extends KrauseningConfig {
+        @Key("benchmark.key.0")
+        String getValue();
+
+        @Key("benchmark.missing")
+        @DefaultValue("42")
+        int getNumber();
+    }
+
+    @KrauseningSources(PROPERTIES_FILE_NAME)
+    public interface PlainConfig extends BenchmarkConfig {
+    }
+
+    @DisableValueCache
+    @KrauseningSources(PROPERTIES_FILE_NAME)
+    public interface UncachedConfig extends BenchmarkConfig {
+    }
+
+    @HotReload(value = 1, unit = TimeUnit.SECONDS, type = HotReloadType.SYNC)
+    @KrauseningSources(PROPERTIES_FILE_NAME)
+    public interface SyncHotReloadConfig extends BenchmarkConfig {
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.technologybrewery.krausening.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+import org.jasypt.iv.RandomIvGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.technologybrewery.krausening.Krausening;
+
+/**
+ * Cost of reading a plain property value compared to an encrypted one, with
+ * and without caching of decrypted values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EncryptedPropertyBenchmark {
+
+    private static final String MASTER_PASSWORD = "benchmarkMasterPassword";
+
+    /** Must match the algorithm Krausening decrypts with. */
+    private static final String ENCRYPTION_ALGORITHM = "PBEWithHMACSHA512AndAES_256";
+
+    private static final int KEYS_PER_FILE = 20;
+
+    @Param({ "false", "true" })
+    private boolean encrypted;
+
+    @Param({ "true", "false" })
+    private boolean cacheDecryptedValues;
+
+    private PropertyTree tree;
+    private Properties properties;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty(Krausening.KRAUSENING_PASSWORD, MASTER_PASSWORD);
+        System.setProperty(Krausening.CACHE_DECRYPTED_VALUES, Boolean.toString(cacheDecryptedValues));
+        tree = PropertyTree.create(1, KEYS_PER_FILE, encrypted ? encryptor() : UnaryOperator.identity());
+
+        Krausening krausening = Krausening.getInstance(PropertyTree.OVERRIDE_SUBFOLDER);
+        krausening.loadProperties();
+        properties = krausening.getProperties(PropertyTree.fileName(0));
+        keys = new String[KEYS_PER_FILE];
+        for (int i = 0; i < KEYS_PER_FILE; i++) {
+            keys[i] = PropertyTree.key(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tree.delete();
+        System.clearProperty(Krausening.KRAUSENING_PASSWORD);
+        System.clearProperty(Krausening.CACHE_DECRYPTED_VALUES);
+    }
+
+    @Benchmark
+    public String getProperty() {
+        next = (next + 1) % KEYS_PER_FILE;
+        return properties.getProperty(keys[next]);
+    }
+
+    private static UnaryOperator<String> encryptor() {
+        StandardPBEStringEncryptor encryptor = new StandardPBEStringEncryptor();
+        encryptor.setPassword(MASTER_PASSWORD);
+        encryptor.setAlgorithm(ENCRYPTION_ALGORITHM);
+        encryptor.setIvGenerator(new RandomIvGenerator());
+        return value -> "ENC(" + encryptor.encrypt(value) + ")";
+    }
+
+}
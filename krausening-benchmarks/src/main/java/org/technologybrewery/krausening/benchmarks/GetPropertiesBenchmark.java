@@ -0,0 +1,107 @@
+package org.technologybrewery.krausening.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.technologybrewery.krausening.Krausening;
+
+/**
+ * Throughput of {@link Krausening#getProperties(String)} when many threads
+ * read from the same instance, with and without a concurrent reload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GetPropertiesBenchmark {
+
+    private static final int FILE_COUNT = 100;
+
+    private static final String[] FILE_NAMES = new String[FILE_COUNT];
+    static {
+        for (int i = 0; i < FILE_COUNT; i++) {
+            FILE_NAMES[i] = PropertyTree.fileName(i);
+        }
+    }
+
+    private static final String KEY = PropertyTree.key(0);
+
+    private PropertyTree tree;
+    private Krausening krausening;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = PropertyTree.create(FILE_COUNT, 20);
+        krausening = Krausening.getInstance(PropertyTree.OVERRIDE_SUBFOLDER);
+        krausening.loadProperties();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tree.delete();
+    }
+
+    /**
+     * Per-thread position in the tree, so threads read different files.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        private int next;
+
+        String nextFileName() {
+            next = (next + 1) % FILE_COUNT;
+            return FILE_NAMES[next];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Properties getPropertiesSingleThread(Reader reader) {
+        return krausening.getProperties(reader.nextFileName());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Properties getPropertiesContended(Reader reader) {
+        return krausening.getProperties(reader.nextFileName());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String getPropertyContended(Reader reader) {
+        return krausening.getProperties(reader.nextFileName()).getProperty(KEY);
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(7)
+    public Properties getPropertiesWhileReloading(Reader reader) {
+        return krausening.getProperties(reader.nextFileName());
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(1)
+    public long reload() {
+        krausening.loadProperties();
+        return krausening.getSnapshotVersion();
+    }
+
+}
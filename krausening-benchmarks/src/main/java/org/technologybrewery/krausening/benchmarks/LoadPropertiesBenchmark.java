@@ -0,0 +1,60 @@
+package org.technologybrewery.krausening.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.technologybrewery.krausening.Krausening;
+
+/**
+ * Time to (re)load a property tree of increasing size spread across the base,
+ * extensions, and override extensions locations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadPropertiesBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    private int fileCount;
+
+    @Param({ "false", "true" })
+    private boolean lazy;
+
+    private PropertyTree tree;
+    private Krausening krausening;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty(Krausening.LAZY_LOAD, Boolean.toString(lazy));
+        tree = PropertyTree.create(fileCount, 20);
+        krausening = Krausening.getInstance(PropertyTree.OVERRIDE_SUBFOLDER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tree.delete();
+        System.clearProperty(Krausening.LAZY_LOAD);
+    }
+
+    @Benchmark
+    public long loadProperties() {
+        krausening.loadProperties();
+        return krausening.getSnapshotVersion();
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.technologybrewery.krausening.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.aeonbits.owner.KrauseningConfig;
+import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy;
+import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy.KrauseningMergePolicyType;
+import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
+import org.aeonbits.owner.KrauseningConfigFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.technologybrewery.krausening.Krausening;
+
+/**
+ * Time to create a {@link KrauseningConfig} whose {@link KrauseningSources}
+ * have to be merged, with each {@link KrauseningMergePolicyType}. Properties
+ * are reloaded before every creation, so the sources are always merged rather
+ * than reused from an earlier config. Keys do not overlap between sources, so
+ * that every policy (including
+ * {@link KrauseningMergePolicyType#FAIL_ON_DUPLICATE_PROPERTY_KEY}) merges
+ * successfully and does the same amount of work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MergePolicyBenchmark {
+
+    /** Number of files in the {@link KrauseningSources} of every config. */
+    private static final int SOURCE_COUNT = 4;
+
+    public enum Policy {
+        FAIL_ON_DUPLICATE_PROPERTY_KEY(FailOnDuplicateConfig.class),
+        LAST_TAKES_PRECEDENCE(LastTakesPrecedenceConfig.class),
+        FIRST_TAKES_PRECEDENCE(FirstTakesPrecedenceConfig.class);
+
+        private final Class<? extends KrauseningConfig> configClass;
+
+        Policy(Class<? extends KrauseningConfig> configClass) {
+            this.configClass = configClass;
+        }
+    }
+
+    @Param
+    private Policy policy;
+
+    @Param({ "20", "1000" })
+    private int keysPerSource;
+
+    private PropertyTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = PropertyTree.create(0, 0);
+        for (int source = 0; source < SOURCE_COUNT; source++) {
+            try (Writer writer = Files.newBufferedWriter(tree.getBase().resolve(fileName(source)),
+                    StandardCharsets.ISO_8859_1)) {
+                for (int key = 0; key < keysPerSource; key++) {
+                    writer.write("source." + source + ".key." + key + "=value-" + key + "\n");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write benchmark property files", e);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reload() {
+        Krausening.getInstance().loadProperties();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tree.delete();
+    }
+
+    @Benchmark
+    public KrauseningConfig createConfig() {
+        return KrauseningConfigFactory.create(policy.configClass);
+    }
+
+    private static String fileName(int source) {
+        return "merge-" + source + ".properties";
+    }
+
+    @KrauseningMergePolicy(KrauseningMergePolicyType.FAIL_ON_DUPLICATE_PROPERTY_KEY)
+    @KrauseningSources({ "merge-0.properties", "merge-1.properties", "merge-2.properties", "merge-3.properties" })
+    public interface FailOnDuplicateConfig extends KrauseningConfig {
+    }
+
+    @KrauseningMergePolicy(KrauseningMergePolicyType.LAST_TAKES_PRECEDENCE)
+    @KrauseningSources({ "merge-0.properties", "merge-1.properties", "merge-2.properties", "merge-3.properties" })
+    public interface LastTakesPrecedenceConfig extends KrauseningConfig {
+    }
+
+    @KrauseningMergePolicy(KrauseningMergePolicyType.FIRST_TAKES_PRECEDENCE)
+    @KrauseningSources({ "merge-0.properties", "merge-1.properties", "merge-2.properties", "merge-3.properties" })
+    public interface FirstTakesPrecedenceConfig extends KrauseningConfig {
+    }
+
+}
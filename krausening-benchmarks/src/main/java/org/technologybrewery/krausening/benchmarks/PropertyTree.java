@@ -0,0 +1,165 @@
+package org.technologybrewery.krausening.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.technologybrewery.krausening.Krausening;
+
+/**
+ * A generated tree of property files spread across the base, extensions, and
+ * override extensions locations, which benchmarks point Krausening at through
+ * the usual system properties. Every file exists in the base location; every
+ * second file is extended and every fourth is overridden, so loading exercises
+ * all three layers.
+ */
+public final class PropertyTree {
+
+    /** Override extensions subfolder the tree is written to. */
+    public static final String OVERRIDE_SUBFOLDER = "benchmark";
+
+    private static final String FILE_NAME_PREFIX = "benchmark-";
+
+    private final Path root;
+    private final int fileCount;
+    private final int keysPerFile;
+
+    private PropertyTree(Path root, int fileCount, int keysPerFile) {
+        this.root = root;
+        this.fileCount = fileCount;
+        this.keysPerFile = keysPerFile;
+    }
+
+    /**
+     * Writes a new tree to a temporary directory and sets the Krausening
+     * location system properties to it.
+     * 
+     * @param fileCount
+     *            number of distinct property files
+     * @param keysPerFile
+     *            number of keys in each base file
+     * @return the tree, which should be {@link #delete() deleted} once the
+     *         benchmark is done with it
+     */
+    public static PropertyTree create(int fileCount, int keysPerFile) {
+        return create(fileCount, keysPerFile, UnaryOperator.identity());
+    }
+
+    /**
+     * Writes a new tree to a temporary directory and sets the Krausening
+     * location system properties to it.
+     * 
+     * @param fileCount
+     *            number of distinct property files
+     * @param keysPerFile
+     *            number of keys in each base file
+     * @param valueFormat
+     *            turns each plain value into the value that is written (e.g.,
+     *            to encrypt it)
+     * @return the tree, which should be {@link #delete() deleted} once the
+     *         benchmark is done with it
+     */
+    public static PropertyTree create(int fileCount, int keysPerFile, UnaryOperator<String> valueFormat) {
+        try {
+            PropertyTree tree = new PropertyTree(Files.createTempDirectory("krausening-benchmark"), fileCount,
+                    keysPerFile);
+            tree.write(valueFormat);
+            System.setProperty(Krausening.BASE_LOCATION, tree.getBase().toString());
+            System.setProperty(Krausening.EXTENSIONS_LOCATION, tree.getExtensions().toString());
+            System.setProperty(Krausening.OVERRIDE_EXTENSIONS_LOCATION, tree.getOverrideExtensions().toString());
+            return tree;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write benchmark property files", e);
+        }
+    }
+
+    /**
+     * @param index
+     *            index of a file, between 0 and the file count
+     * @return name of the file
+     */
+    public static String fileName(int index) {
+        return FILE_NAME_PREFIX + index + ".properties";
+    }
+
+    /**
+     * @param index
+     *            index of a key, between 0 and the keys per file
+     * @return name of the key
+     */
+    public static String key(int index) {
+        return "benchmark.key." + index;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getKeysPerFile() {
+        return keysPerFile;
+    }
+
+    public Path getBase() {
+        return root.resolve("base");
+    }
+
+    public Path getExtensions() {
+        return root.resolve("extensions");
+    }
+
+    public Path getOverrideExtensions() {
+        return root.resolve("override");
+    }
+
+    /**
+     * Removes the tree from disk and clears the Krausening location system
+     * properties.
+     */
+    public void delete() {
+        System.clearProperty(Krausening.BASE_LOCATION);
+        System.clearProperty(Krausening.EXTENSIONS_LOCATION);
+        System.clearProperty(Krausening.OVERRIDE_EXTENSIONS_LOCATION);
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete " + root, e);
+        }
+    }
+
+    private void write(UnaryOperator<String> valueFormat) throws IOException {
+        Path overrideFolder = getOverrideExtensions().resolve(OVERRIDE_SUBFOLDER);
+        Files.createDirectories(getBase());
+        Files.createDirectories(getExtensions());
+        Files.createDirectories(overrideFolder);
+
+        for (int i = 0; i < fileCount; i++) {
+            writeFile(getBase().resolve(fileName(i)), keysPerFile, "base", valueFormat);
+            if (i % 2 == 0) {
+                writeFile(getExtensions().resolve(fileName(i)), keysPerFile / 2, "extensions", valueFormat);
+            }
+            if (i % 4 == 0) {
+                writeFile(overrideFolder.resolve(fileName(i)), keysPerFile / 4, "override", valueFormat);
+            }
+        }
+    }
+
+    private static void writeFile(Path file, int keyCount, String layer, UnaryOperator<String> valueFormat)
+            throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            for (int i = 0; i < keyCount; i++) {
+                writer.write(key(i));
+                writer.write('=');
+                writer.write(valueFormat.apply(layer + "-value-" + i));
+                writer.write('\n');
+            }
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package org.technologybrewery.krausening.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy;
+import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy.KrauseningMergePolicyType;
+import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.technologybrewery.krausening.KrauseningBundle;
+import org.technologybrewery.krausening.KrauseningException;
+
+/**
+ * Compiles a base directory, an optional extensions directory, and every
+ * subfolder of an optional override extensions directory into a
+ * {@link KrauseningBundle}, which Krausening loads when KRAUSENING_BASE points
+ * at it. Every .properties file is parsed, so malformed files fail the build
+ * rather than the deployment.
+ * <p>
+ * Unless disabled, every {@link KrauseningSources} interface compiled by the
+ * project is also checked against the bundle: interfaces that use the
+ * default FAIL_ON_DUPLICATE_PROPERTY_KEY merge policy fail the build if any
+ * key is set by more than one of their source files, with or without each
+ * override subfolder applied.
+ */
+@Mojo(name = "bundle", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class BundleMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /** Directory of the base .properties files. */
+    @Parameter(property = "krausening.baseDirectory", required = true)
+    private File baseDirectory;
+
+    /** Directory of the extension .properties files, if any. */
+    @Parameter(property = "krausening.extensionsDirectory")
+    private File extensionsDirectory;
+
+    /** Directory whose subfolders hold override extension .properties files, if any. */
+    @Parameter(property = "krausening.overrideExtensionsDirectory")
+    private File overrideExtensionsDirectory;
+
+    /** The bundle to write. */
+    @Parameter(property = "krausening.bundleFile", defaultValue = "${project.build.directory}/krausening.bundle")
+    private File bundleFile;
+
+    /** Whether to check the merge policies of the project's {@link KrauseningSources} interfaces. */
+    @Parameter(property = "krausening.checkMergePolicies", defaultValue = "true")
+    private boolean checkMergePolicies;
+
+    @Parameter(property = "krausening.bundle.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping Krausening bundle");
+            return;
+        }
+
+        KrauseningBundle bundle;
+        try {
+            bundle = KrauseningBundle.compile(baseDirectory, extensionsDirectory, overrideExtensionsDirectory);
+        } catch (KrauseningException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        }
+
+        if (checkMergePolicies) {
+            checkMergePolicies(bundle);
+        }
+
+        try {
+            bundle.write(bundleFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write Krausening bundle " + bundleFile, e);
+        }
+        getLog().info("Wrote Krausening bundle " + bundleFile + " with layers " + bundle.getLayers());
+    }
+
+    private void checkMergePolicies(KrauseningBundle bundle) throws MojoExecutionException, MojoFailureException {
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        if (!outputDirectory.isDirectory()) {
+            getLog().debug("No compiled classes to check against the Krausening bundle");
+            return;
+        }
+
+        // one violation per interface and key, reported for the first layer combination it occurs in
+        Map<String, String> violations = new LinkedHashMap<>();
+        try (URLClassLoader classLoader = createProjectClassLoader()) {
+            for (String className : findClassNames(outputDirectory.toPath())) {
+                Class<?> type;
+                try {
+                    type = Class.forName(className, false, classLoader);
+                } catch (ClassNotFoundException | LinkageError e) {
+                    getLog().debug("Skipping " + className + ": " + e);
+                    continue;
+                }
+                KrauseningSources sources = type.getAnnotation(KrauseningSources.class);
+                if (type.isInterface() && sources != null) {
+                    checkSources(type, sources.value(), bundle, violations);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not check the merge policies of " + outputDirectory, e);
+        }
+
+        if (!violations.isEmpty()) {
+            for (String violation : violations.values()) {
+                getLog().error(violation);
+            }
+            throw new MojoFailureException(violations.size()
+                    + " duplicate Krausening property key(s) found for FAIL_ON_DUPLICATE_PROPERTY_KEY interfaces");
+        }
+    }
+
+    private void checkSources(Class<?> type, String[] sources, KrauseningBundle bundle,
+            Map<String, String> violations) {
+        KrauseningMergePolicy mergePolicy = type.getAnnotation(KrauseningMergePolicy.class);
+        KrauseningMergePolicyType mergePolicyType = (mergePolicy != null) ? mergePolicy.value()
+                : KrauseningMergePolicyType.FAIL_ON_DUPLICATE_PROPERTY_KEY;
+
+        for (String source : sources) {
+            if (bundle.getMergedEntries(source, null) == null) {
+                getLog().warn(type.getName() + " uses " + source + ", which is not in the Krausening bundle");
+            }
+        }
+        if (mergePolicyType != KrauseningMergePolicyType.FAIL_ON_DUPLICATE_PROPERTY_KEY) {
+            return;
+        }
+
+        List<String> overrideSubfolders = new ArrayList<>();
+        overrideSubfolders.add(null);
+        overrideSubfolders.addAll(bundle.getOverrideExtensionSubfolders());
+        for (String overrideSubfolder : overrideSubfolders) {
+            Map<String, String> keySources = new HashMap<>();
+            for (String source : sources) {
+                Map<String, String> entries = bundle.getMergedEntries(source, overrideSubfolder);
+                if (entries == null) {
+                    continue;
+                }
+                for (String key : entries.keySet()) {
+                    String previousSource = keySources.putIfAbsent(key, source);
+                    if (previousSource != null) {
+                        violations.putIfAbsent(type.getName() + ":" + key,
+                                type.getName() + ": " + key + " is set in both " + previousSource + " and " + source
+                                        + ((overrideSubfolder != null)
+                                                ? " with override subfolder " + overrideSubfolder : ""));
+                    }
+                }
+            }
+        }
+    }
+
+    private URLClassLoader createProjectClassLoader() throws MojoExecutionException {
+        List<String> classpathElements;
+        try {
+            classpathElements = project.getCompileClasspathElements();
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Could not resolve the compile classpath", e);
+        }
+        List<URL> urls = new ArrayList<>(classpathElements.size());
+        for (String classpathElement : classpathElements) {
+            try {
+                urls.add(new File(classpathElement).toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw new MojoExecutionException("Invalid classpath element " + classpathElement, e);
+            }
+        }
+        // parent first, so annotations are read as this plugin's Krausening classes
+        return new URLClassLoader(urls.toArray(new URL[0]), getClass().getClassLoader());
+    }
+
+    private static List<String> findClassNames(Path outputDirectory) throws IOException {
+        try (Stream<Path> files = Files.walk(outputDirectory)) {
+            List<String> classNames = files.map(outputDirectory::relativize)
+                    .map(Path::toString)
+                    .filter(path -> path.endsWith(".class") && !path.endsWith("module-info.class")
+                            && !path.endsWith("package-info.class"))
+                    .map(path -> path.substring(0, path.length() - ".class".length())
+                            .replace(File.separatorChar, '.'))
+                    .collect(Collectors.toList());
+            Collections.sort(classNames);
+            return classNames;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.technologybrewery.krausening.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy;
+import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy.KrauseningMergePolicyType;
+import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.technologybrewery.krausening.KrauseningBundle;
+
+/**
+ * Exercises the merge policy check of {@link BundleMojo} against the
+ * {@link KrauseningSources} interfaces below, which are found among the
+ * compiled test classes.
+ */
+public class BundleMojoTest {
+
+    private static final String FIRST_PROPERTIES = "bundle-mojo-first.properties";
+    private static final String SECOND_PROPERTIES = "bundle-mojo-second.properties";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseDirectory;
+    private File bundleFile;
+
+    @Before
+    public void createBaseDirectory() throws IOException {
+        baseDirectory = temporaryFolder.newFolder("base");
+        bundleFile = new File(temporaryFolder.getRoot(), "krausening.bundle");
+    }
+
+    @Test
+    public void testDistinctKeysWriteBundle() throws Exception {
+        write(new File(baseDirectory, FIRST_PROPERTIES), "first=1\n");
+        write(new File(baseDirectory, SECOND_PROPERTIES), "second=2\n");
+
+        newMojo(null).execute();
+        assertTrue(KrauseningBundle.isBundle(bundleFile));
+    }
+
+    @Test
+    public void testDuplicateKeyFailsBuild() throws Exception {
+        write(new File(baseDirectory, FIRST_PROPERTIES), "shared=1\n");
+        write(new File(baseDirectory, SECOND_PROPERTIES), "shared=2\n");
+
+        assertDuplicateKeyFailsBuild(newMojo(null));
+    }
+
+    @Test
+    public void testDuplicateKeyInOverrideSubfolderFailsBuild() throws Exception {
+        write(new File(baseDirectory, FIRST_PROPERTIES), "first=1\n");
+        write(new File(baseDirectory, SECOND_PROPERTIES), "second=2\n");
+        File overrides = temporaryFolder.newFolder("overrides");
+        File war = new File(overrides, "war1");
+        war.mkdir();
+        write(new File(war, SECOND_PROPERTIES), "first=overridden\n");
+
+        assertDuplicateKeyFailsBuild(newMojo(overrides));
+    }
+
+    private void assertDuplicateKeyFailsBuild(BundleMojo mojo) throws MojoExecutionException {
+        try {
+            mojo.execute();
+            fail("Expected the duplicate key to fail the build");
+        } catch (MojoFailureException e) {
+            // only DuplicateKeyConfig uses FAIL_ON_DUPLICATE_PROPERTY_KEY
+            assertEquals("1 duplicate Krausening property key(s) found for FAIL_ON_DUPLICATE_PROPERTY_KEY interfaces",
+                    e.getMessage());
+        }
+        assertFalse("A failed check should not write the bundle", bundleFile.exists());
+    }
+
+    private BundleMojo newMojo(File overrideExtensionsDirectory) throws ReflectiveOperationException {
+        MavenProject project = new MavenProject();
+        project.getBuild().setOutputDirectory(new File("target/test-classes").getAbsolutePath());
+
+        BundleMojo mojo = new BundleMojo();
+        setField(mojo, "project", project);
+        setField(mojo, "baseDirectory", baseDirectory);
+        setField(mojo, "overrideExtensionsDirectory", overrideExtensionsDirectory);
+        setField(mojo, "bundleFile", bundleFile);
+        setField(mojo, "checkMergePolicies", true);
+        return mojo;
+    }
+
+    private static void setField(BundleMojo mojo, String name, Object value) throws ReflectiveOperationException {
+        Field field = BundleMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @KrauseningSources({ FIRST_PROPERTIES, SECOND_PROPERTIES })
+    interface DuplicateKeyConfig {
+    }
+
+    @KrauseningSources({ FIRST_PROPERTIES, SECOND_PROPERTIES })
+    @KrauseningMergePolicy(KrauseningMergePolicyType.LAST_TAKES_PRECEDENCE)
+    interface LastTakesPrecedenceConfig {
+    }
+
+}
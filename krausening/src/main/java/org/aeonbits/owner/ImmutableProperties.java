@@ -0,0 +1,136 @@
+package org.aeonbits.owner;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@link Properties} that cannot be changed once created, so that a single instance can safely be shared by every
+ * {@link KrauseningConfig} proxy that loads the same set of properties.
+ */
+final class ImmutableProperties extends Properties {
+
+	private static final long serialVersionUID = 2830495183762940163L;
+
+	/** Shared instance with no properties. */
+	static final ImmutableProperties EMPTY = new ImmutableProperties(Collections.emptyMap());
+
+	/**
+	 * @param source
+	 *            the entries to copy
+	 */
+	ImmutableProperties(Map<?, ?> source) {
+		for (Map.Entry<?, ?> entry : source.entrySet()) {
+			super.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public synchronized Object setProperty(String key, String value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized void load(Reader reader) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized void load(InputStream inStream) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized void loadFromXML(InputStream in) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object put(Object key, Object value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized void putAll(Map<?, ?> t) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object putIfAbsent(Object key, Object value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object remove(Object key) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized boolean remove(Object key, Object value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized boolean replace(Object key, Object oldValue, Object newValue) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object replace(Object key, Object value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object computeIfPresent(Object key,
+			BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object compute(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public synchronized Object merge(Object key, Object value,
+			BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Set<Object> keySet() {
+		return Collections.unmodifiableSet(super.keySet());
+	}
+
+	@Override
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		return Collections.unmodifiableSet(super.entrySet());
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return Collections.unmodifiableCollection(super.values());
+	}
+
+}
@@ -1,21 +1,25 @@
 package org.aeonbits.owner;
 
-import java.io.File;
-import java.io.IOException;
-import java.net.URI;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 
+import org.aeonbits.owner.Config.HotReloadType;
 import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy;
 import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy.KrauseningMergePolicyType;
 import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
-import org.apache.commons.lang3.StringUtils;
 import org.technologybrewery.krausening.Krausening;
-import org.technologybrewery.krausening.KrauseningException;
+import org.technologybrewery.krausening.KrauseningMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,14 +37,29 @@ class KrauseningAwarePropertiesManager extends PropertiesManager {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(KrauseningAwarePropertiesManager.class);
 
+	/**
+	 * Merged Krausening properties shared by every proxy with the same {@link KrauseningSources} and
+	 * {@link KrauseningMergePolicy}.
+	 */
+	private static final ConcurrentMap<MergeKey, MergedProperties> mergeCache = new ConcurrentHashMap<>();
+
 	private List<String> krauseningPropertyFileNames;
 	private KrauseningMergePolicyType mergePolicyType;
+	private MergeKey mergeKey;
 	private boolean ownerPropertySourcesSpecified;
-	private HotReloadLogic krauseningHotReloadLogic;
+	private boolean variableReferencesChecked;
+
+	/** The {@link Config.DefaultValue} of each property, which OWNER expands references to; null unless checked. */
+	private Map<String, String> expansionDefaults;
+	private KrauseningHotReloadWatcher hotReloadWatcher;
+	private KrauseningHotReloadWatcher.Registration hotReloadRegistration;
+	private ReloadCheckGate ownerReloadCheckGate;
 
 	KrauseningAwarePropertiesManager(Class<? extends Config> clazz, Properties properties,
-			ScheduledExecutorService scheduler, VariablesExpander expander, LoadersManager loaders, Map<?, ?>[] imports) {
+			ScheduledExecutorService scheduler, KrauseningHotReloadWatcher hotReloadWatcher, VariablesExpander expander,
+			LoadersManager loaders, Map<?, ?>[] imports) {
 		super(clazz, properties, scheduler, expander, loaders, imports);
+		this.hotReloadWatcher = hotReloadWatcher;
 
 		KrauseningSources krauseningSources = clazz.getAnnotation(KrauseningSources.class);
 		if (krauseningSources == null || krauseningSources.value().length == 0) {
@@ -54,22 +73,20 @@ class KrauseningAwarePropertiesManager extends PropertiesManager {
 				: KrauseningMergePolicyType.FAIL_ON_DUPLICATE_PROPERTY_KEY;
 
 		this.ownerPropertySourcesSpecified = clazz.getAnnotation(Sources.class) != null;
+		this.mergeKey = new MergeKey(this.krauseningPropertyFileNames, this.mergePolicyType);
+		this.variableReferencesChecked = canCheckVariableReferences(clazz, imports);
+		if (this.variableReferencesChecked) {
+			this.expansionDefaults = getDefaults(clazz);
+		}
 
 		HotReload krauseningHotReload = clazz.getAnnotation(HotReload.class);
 		if (krauseningHotReload != null) {
-			try {
-				this.krauseningHotReloadLogic = new HotReloadLogic(krauseningHotReload,
-						getKrauseningPropertyFileURIs(this.krauseningPropertyFileNames), this);
-			} catch (IOException exception) {
-				throw new KrauseningException("Could not configure hot reload support for Krausening files", exception);
+			this.hotReloadRegistration = hotReloadWatcher.register(this, this.krauseningPropertyFileNames,
+					krauseningHotReload);
+			if (this.ownerPropertySourcesSpecified && krauseningHotReload.type() == HotReloadType.SYNC) {
+				this.ownerReloadCheckGate = new ReloadCheckGate(
+						Math.max(1L, krauseningHotReload.unit().toMillis(krauseningHotReload.value())));
 			}
-
-			if (this.krauseningHotReloadLogic.isAsync())
-				scheduler.scheduleAtFixedRate(new Runnable() {
-					public void run() {
-						krauseningHotReloadLogic.checkAndReload();
-					}
-				}, krauseningHotReload.value(), krauseningHotReload.value(), krauseningHotReload.unit());
 		}
 	}
 
@@ -80,91 +97,209 @@ class KrauseningAwarePropertiesManager extends PropertiesManager {
 	 * 
 	 * @return merged set of {@link Properties} specified by the relevant {@link KrauseningSources} and {@link Sources}
 	 *         annotations.
+	 * @throws org.technologybrewery.krausening.KrauseningException
+	 *             if ${variable} references are checked and any properties refer to each other in a cycle
 	 */
 	@Override
 	Properties doLoad() {
+		MergedProperties krauseningProperties = getMergedKrauseningProperties();
+		if (this.ownerPropertySourcesSpecified) {
+			return this.mergePolicyType
+					.mergeProperties(Arrays.asList(krauseningProperties.mergedProperties, super.doLoad()));
+		}
+		if (this.variableReferencesChecked) {
+			krauseningProperties.checkVariableReferences(this.expansionDefaults);
+		}
+		return krauseningProperties.mergedProperties;
+	}
+
+	/**
+	 * @return the {@link Config.DefaultValue} of each property of the given interface, exactly as OWNER adds them to the
+	 *         properties that it expands ${variable} references against
+	 */
+	private static Map<String, String> getDefaults(Class<? extends Config> clazz) {
+		Properties defaults = new Properties();
+		PropertiesMapper.defaults(defaults, clazz);
+		Map<String, String> result = new HashMap<>();
+		for (String key : defaults.stringPropertyNames()) {
+			result.put(key, defaults.getProperty(key));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Returns whether ${variable} references can be checked for cycles once, when properties are merged, so a cycle
+	 * fails the load rather than the first read of a value in it. OWNER still expands values as they are read, and
+	 * {@link Accessible} methods still return values as written. This is only the case when the properties of the
+	 * proxy are exactly the merged {@link KrauseningSources} (i.e., there are no {@link Sources} or imports), and no
+	 * method reads values without expanding them.
+	 */
+	private boolean canCheckVariableReferences(Class<? extends Config> clazz, Map<?, ?>[] imports) {
+		if (this.ownerPropertySourcesSpecified || (imports != null && imports.length > 0)
+				|| disablesVariableExpansion(clazz.getAnnotation(DisableFeature.class))) {
+			return false;
+		}
+		for (Method method : clazz.getMethods()) {
+			if (disablesVariableExpansion(method.getAnnotation(DisableFeature.class))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean disablesVariableExpansion(DisableFeature disableFeature) {
+		return disableFeature != null
+				&& Arrays.asList(disableFeature.value()).contains(DisableableFeature.VARIABLE_EXPANSION);
+	}
+
+	/**
+	 * Returns the merged properties specified in {@link KrauseningSources}, merging them only if one of the
+	 * contributing files has changed since they were last merged for any proxy with the same sources and merge
+	 * policy. {@link Krausening} returns the same {@link Properties} instance for a file until that file is reloaded,
+	 * so an unchanged file is detected by identity.
+	 * 
+	 * @return immutable merged properties, which may be shared with other proxies
+	 */
+	private MergedProperties getMergedKrauseningProperties() {
 		List<Properties> propertiesToMerge = new ArrayList<>(this.krauseningPropertyFileNames.size());
 		Krausening krausening = Krausening.getInstance();
 		for (String krauseningPropertyFileName : this.krauseningPropertyFileNames) {
 		    Properties properties = krausening.getProperties(krauseningPropertyFileName);
 		    
 		    if (properties == null) {
-		        properties = new Properties();
+		        properties = ImmutableProperties.EMPTY;
 		        LOGGER.warn("No properties file was found for {}", krauseningPropertyFileName);
 		    }
 		    
 			propertiesToMerge.add(properties);
 			
 		}
-		if (this.ownerPropertySourcesSpecified) {
-			propertiesToMerge.add(super.doLoad());
+
+		MergedProperties cached = mergeCache.get(this.mergeKey);
+		if (cached != null && cached.isMergeOf(propertiesToMerge)) {
+			return cached;
+		}
+
+		boolean measured = KrauseningMetrics.isEnabled();
+		long start = measured ? System.nanoTime() : 0L;
+		Properties mergedProperties = new ImmutableProperties(this.mergePolicyType.mergeProperties(propertiesToMerge));
+		if (measured) {
+			KrauseningMetrics.propertiesMerged(this.krauseningPropertyFileNames, mergedProperties.size(),
+					System.nanoTime() - start);
 		}
-		return this.mergePolicyType.mergeProperties(propertiesToMerge);
+		MergedProperties merged = new MergedProperties(propertiesToMerge, mergedProperties);
+		mergeCache.put(this.mergeKey, merged);
+		LOGGER.debug("Merged {} using {}", this.krauseningPropertyFileNames, this.mergePolicyType);
+		return merged;
 	}
 
 	/**
 	 * Checks to see if properties files loaded by {@link Krausening} and OWNER have been physically updated and if so,
-	 * reloads them.
+	 * reloads them. Files loaded by {@link Krausening} are checked by the {@link KrauseningHotReloadWatcher} shared by
+	 * every proxy. As this is called on every proxy method invocation, files loaded by OWNER are only checked once the
+	 * {@link HotReload} interval has elapsed, and only by one of any concurrent callers.
 	 */
 	@Override
 	void syncReloadCheck() {
-		if (this.krauseningHotReloadLogic != null && this.krauseningHotReloadLogic.isSync()) {
-			this.krauseningHotReloadLogic.checkAndReload();
+		if (this.hotReloadRegistration != null && this.hotReloadRegistration.isSync()) {
+			this.hotReloadWatcher.syncCheck(this.hotReloadRegistration);
 		}
-		if (this.ownerPropertySourcesSpecified) {
+		if (this.ownerReloadCheckGate != null && this.ownerReloadCheckGate.tryEnter()) {
 			super.syncReloadCheck();
 		}
 	}
 
 	/**
-	 * Reloads all properties managed by {@link Krausening} and OWNER.
+	 * Reloads all properties managed by {@link Krausening} and OWNER. Reloading {@link Krausening} is coordinated
+	 * across all proxies, so reloads requested by many proxies at once are only loaded from disk once, and every proxy
+	 * refreshes from that single load.
 	 */
 	@Delegate
 	@Override
 	public void reload() {
-		Krausening.getInstance().loadProperties();
+		Krausening.getInstance().getReloadCoordinator().reload();
 		super.reload();
 	}
 
 	/**
-	 * Returns a list of URIs that map to the actual physical property files managed by {@link Krausening}.
-	 * 
-	 * @param krauseningPropertyFileNames
-	 *            file names of the properties that are managed by {@link Krausening}.
-	 * @return {@link List} of {@link URI}s that map to the physical property files managed by {@link Krausening}.
-	 * @throws IOException
+	 * Reloads this proxy because the {@link KrauseningHotReloadWatcher} detected a change to one of its files. A change
+	 * noticed by many proxies is only loaded from disk once, by whichever proxy reloads first.
 	 */
-	private List<URI> getKrauseningPropertyFileURIs(List<String> krauseningPropertyFileNames)
-			throws IOException {
-	    String baseLocationProperty = System.getProperty(Krausening.BASE_LOCATION);
-	    String extensionsLocationProperty = System.getProperty(Krausening.EXTENSIONS_LOCATION);
-	    
-	    final String TMP = "tmp";
-	    final String DEFAULT_LOCATION_MESSAGE = "No {} set! Default to {}";        
-        if (StringUtils.isBlank(baseLocationProperty)) {
-	        baseLocationProperty = File.createTempFile("krausening-base", TMP).getParentFile().getCanonicalPath();
-	        LOGGER.warn(DEFAULT_LOCATION_MESSAGE, Krausening.BASE_LOCATION, baseLocationProperty);
-	    }
-	    
-	    if (StringUtils.isBlank(extensionsLocationProperty)) {
-	        extensionsLocationProperty = File.createTempFile("krausening-ext", TMP).getParentFile().getCanonicalPath();
-            LOGGER.warn(DEFAULT_LOCATION_MESSAGE, Krausening.EXTENSIONS_LOCATION, extensionsLocationProperty);
-        }
-	    
-	    File baseLocation = new File(baseLocationProperty);
-	    File extensionLocation = new File(extensionsLocationProperty);	   
-	    
-		List<URI> krauseningPropertyFileURIs = new ArrayList<>();
-		List<File> krauseningFolders = Arrays.asList(baseLocation, extensionLocation);
-
-		for (String krauseningPropertyFileName : krauseningPropertyFileNames) {
-			for (File krauseningFolder : krauseningFolders) {
-				File krauseningPropertyFileObj = new File(krauseningFolder, krauseningPropertyFileName);
-				if (krauseningPropertyFileObj.exists()) {
-					krauseningPropertyFileURIs.add(krauseningPropertyFileObj.toURI());
+	void reloadChangedFiles() {
+		Krausening.getInstance().getReloadCoordinator().reloadIfChanged(this.krauseningPropertyFileNames);
+		super.reload();
+	}
+
+	/**
+	 * Identifies a set of {@link KrauseningSources} merged with a given {@link KrauseningMergePolicy}.
+	 */
+	private static final class MergeKey {
+		private final List<String> krauseningPropertyFileNames;
+		private final KrauseningMergePolicyType mergePolicyType;
+
+		private MergeKey(List<String> krauseningPropertyFileNames, KrauseningMergePolicyType mergePolicyType) {
+			this.krauseningPropertyFileNames = krauseningPropertyFileNames;
+			this.mergePolicyType = mergePolicyType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MergeKey)) {
+				return false;
+			}
+			MergeKey other = (MergeKey) obj;
+			return this.mergePolicyType == other.mergePolicyType
+					&& this.krauseningPropertyFileNames.equals(other.krauseningPropertyFileNames);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.krauseningPropertyFileNames, this.mergePolicyType);
+		}
+	}
+
+	/**
+	 * The result of merging a specific set of loaded {@link Properties}.
+	 */
+	private static final class MergedProperties {
+		private final List<Properties> mergedSources;
+		private final Properties mergedProperties;
+
+		/** Default values that ${variable} references have been checked with. */
+		private final Set<Map<String, String>> referencesCheckedWith = ConcurrentHashMap.newKeySet();
+
+		private MergedProperties(List<Properties> mergedSources, Properties mergedProperties) {
+			this.mergedSources = mergedSources;
+			this.mergedProperties = mergedProperties;
+		}
+
+		/**
+		 * Checks the merged properties for circular ${variable} references, which is only done once per merge and set
+		 * of default values.
+		 * 
+		 * @param defaults
+		 *            default values that references to unset properties expand to
+		 */
+		private void checkVariableReferences(Map<String, String> defaults) {
+			if (!this.referencesCheckedWith.contains(defaults)) {
+				VariableReferences.checkForCycles(this.mergedProperties, defaults);
+				this.referencesCheckedWith.add(defaults);
+			}
+		}
+
+		/**
+		 * @return whether the merge was of exactly the given {@link Properties} instances, in order
+		 */
+		private boolean isMergeOf(List<Properties> sources) {
+			if (sources.size() != this.mergedSources.size()) {
+				return false;
+			}
+			for (int i = 0; i < sources.size(); i++) {
+				if (sources.get(i) != this.mergedSources.get(i)) {
+					return false;
 				}
 			}
+			return true;
 		}
-		return krauseningPropertyFileURIs;
 	}
 }
@@ -1,5 +1,6 @@
 package org.aeonbits.owner;
 
+import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
@@ -7,10 +8,10 @@ import java.lang.annotation.Documented;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -35,6 +36,20 @@ public interface KrauseningConfig extends Config, Accessible {
         String[] value();
     }
 
+    /**
+     * Excludes a method (or, on an interface, every method of the interface)
+     * from the caching of converted values, so the value is converted again
+     * on every call. Use on methods whose converters are intentionally not
+     * deterministic (i.e., @DisableValueCache on a method using a custom
+     * converter that returns a new random value each time).
+     */
+    @Retention(RUNTIME)
+    @Target({ METHOD, TYPE })
+    @Documented
+    @Inherited
+    public @interface DisableValueCache {
+    }
+
     /**
      * Specifies the merge policy to use when loading multiple property files
      * from Krausening.
@@ -50,14 +65,13 @@ public interface KrauseningConfig extends Config, Accessible {
             FAIL_ON_DUPLICATE_PROPERTY_KEY {
                 @Override
                 Properties mergeProperties(List<Properties> propertiesList) {
-                    Set<String> duplicatePropertyKeys = new HashSet<String>();
+                    Set<String> duplicatePropertyKeys = new TreeSet<String>();
                     Properties mergedProperties = new Properties();
                     for (Properties properties : propertiesList) {
                         for (Object propertyKey : properties.keySet()) {
-                            if (mergedProperties.containsKey(propertyKey)) {
-                                duplicatePropertyKeys.add((String) propertyKey);
-                            } else {
-                                mergedProperties.put(propertyKey, properties.getProperty((String) propertyKey));
+                            String key = (String) propertyKey;
+                            if (mergedProperties.putIfAbsent(key, properties.getProperty(key)) != null) {
+                                duplicatePropertyKeys.add(key);
                             }
                         }
                     }
@@ -73,7 +87,10 @@ public interface KrauseningConfig extends Config, Accessible {
                 Properties mergeProperties(List<Properties> propertiesList) {
                     Properties mergedProperties = new Properties();
                     for (Properties properties : propertiesList) {
-                        mergeEncryptableProperties(properties, mergedProperties);
+                        for (Object propertyKey : properties.keySet()) {
+                            String key = (String) propertyKey;
+                            mergedProperties.put(key, properties.getProperty(key));
+                        }
                     }
                     return mergedProperties;
                 }
@@ -82,31 +99,18 @@ public interface KrauseningConfig extends Config, Accessible {
                 @Override
                 Properties mergeProperties(List<Properties> propertiesList) {
                     Properties mergedProperties = new Properties();
-                    for (int reverseIterator = propertiesList.size() - 1; reverseIterator >= 0; reverseIterator--) {
-                        mergeEncryptableProperties(propertiesList.get(reverseIterator), mergedProperties);
+                    for (Properties properties : propertiesList) {
+                        for (Object propertyKey : properties.keySet()) {
+                            String key = (String) propertyKey;
+                            if (!mergedProperties.containsKey(key)) {
+                                mergedProperties.put(key, properties.getProperty(key));
+                            }
+                        }
                     }
                     return mergedProperties;
                 }
             };
             abstract Properties mergeProperties(List<Properties> propertiesList);
-
-            /**
-             * Puts all of the properties from the given merge source into the
-             * target, taking into account that {@link Properties} from the
-             * source may be encrypted.
-             * 
-             * @param mergeSource
-             *            properties to merge into the target
-             * @param mergeTarget
-             *            target properties into which the source will be
-             *            merged.
-             */
-            private static void mergeEncryptableProperties(Properties mergeSource, Properties mergeTarget) {
-                for (Object keyObj : mergeSource.keySet()) {
-                    String key = (String) keyObj;
-                    mergeTarget.put(key, mergeSource.getProperty(key));
-                }
-            }
         }
     }
 }
@@ -17,7 +17,7 @@ import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
  * {@link KrauseningConfig} proxies.
  */
 public final class KrauseningConfigFactory {
-	private static final Factory INSTANCE = newInstance();
+	private static final KrauseningFactory INSTANCE = newInstance();
 
 	private KrauseningConfigFactory() {
 	}
@@ -27,7 +27,7 @@ public final class KrauseningConfigFactory {
 	 * 
 	 * @return a new instance of a config Factory object.
 	 */
-	private static Factory newInstance() {
+	private static KrauseningFactory newInstance() {
 		ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(new ThreadFactory() {
 			public Thread newThread(Runnable r) {
 				Thread result = new Thread(r);
@@ -53,6 +53,26 @@ public final class KrauseningConfigFactory {
 		return INSTANCE.create(clazz, imports);
 	}
 
+	/**
+	 * Creates a {@link KrauseningConfig} instance from the specified interface that is optimized for frequent calls.
+	 * The value (or exception) of each property method that takes no arguments and returns an immutable value (e.g.,
+	 * a primitive, a string, or an enum) is computed ahead of time, and recomputed whenever the properties are reloaded
+	 * (including by hot reloading) or changed. Calling such a method then costs a lookup of its result, instead of
+	 * converting and expanding the value on every call. All other methods behave exactly as for
+	 * {@link #create(Class, Map...)}.
+	 * 
+	 * @param clazz
+	 *            the interface extending from {@link KrauseningConfig} that you want to instantiate.
+	 * @param imports
+	 *            additional variables to be used to resolve the properties.
+	 * @param <T>
+	 *            type of the interface.
+	 * @return an object implementing the given interface, which maps methods to property values.
+	 */
+	public static <T extends KrauseningConfig> T createPrecomputed(Class<? extends T> clazz, Map<?, ?>... imports) {
+		return INSTANCE.createPrecomputed(clazz, imports);
+	}
+
 	/**
 	 * Set a property in the {@link KrauseningConfigFactory}. Those properties will be used to expand variables
 	 * specified in the `@Source` annotation, or by the {@link KrauseningConfigFactory} to configure its own behavior.
@@ -3,10 +3,16 @@ package org.aeonbits.owner;
 import static java.lang.reflect.Proxy.newProxyInstance;
 import static org.aeonbits.owner.util.Reflection.isClassAvailable;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.reflect.Proxy;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ScheduledExecutorService;
 
+import org.aeonbits.owner.event.ReloadEvent;
+import org.aeonbits.owner.event.ReloadListener;
+
 /**
  * {@link KrauseningFactory} extends {@link DefaultFactory} in order to delegate to
  * {@link KrauseningAwarePropertiesManager} for property mapper proxy generation.
@@ -16,26 +22,82 @@ class KrauseningFactory extends DefaultFactory {
     private static final boolean isJMXAvailable = isClassAvailable("javax.management.DynamicMBean");
 
 	private final ScheduledExecutorService scheduler;
+	private final KrauseningHotReloadWatcher hotReloadWatcher;
 
 	KrauseningFactory(ScheduledExecutorService scheduler, Properties props) {
 		super(scheduler, props);
 		this.scheduler = scheduler;
+		this.hotReloadWatcher = new KrauseningHotReloadWatcher(scheduler);
 	}
 
 	@Override
 	public <T extends Config> T create(Class<? extends T> clazz, Map<?, ?>... imports) {
+		return createProxy(clazz, imports).proxy;
+	}
+
+	/**
+	 * Creates a proxy that returns the immutable values of property methods from results computed ahead of time,
+	 * which are recomputed whenever the properties are reloaded or changed, rather than computing them on each call.
+	 */
+	<T extends Config> T createPrecomputed(Class<? extends T> clazz, Map<?, ?>... imports) {
+		CreatedProxy<T> created = createProxy(clazz, imports);
+		final PrecomputedInvocationHandler handler = new PrecomputedInvocationHandler(clazz, created.proxy,
+				Proxy.getInvocationHandler(created.proxy), created.manager);
+		created.manager.addReloadListener(new ReloadListener() {
+			public void reloadPerformed(ReloadEvent event) {
+				handler.refresh();
+			}
+		});
+		if (Mutable.class.isAssignableFrom(clazz)) {
+			// properties can also be changed through the proxy itself
+			created.manager.addPropertyChangeListener(new PropertyChangeListener() {
+				public void propertyChange(PropertyChangeEvent event) {
+					handler.refresh();
+				}
+			});
+		}
+		handler.refresh();
+		return clazz.cast(newProxyInstance(clazz.getClassLoader(), new Class<?>[] { clazz }, handler));
+	}
+
+	private <T extends Config> CreatedProxy<T> createProxy(Class<? extends T> clazz, Map<?, ?>... imports) {
 		Class<?>[] interfaces = new Class<?>[] { clazz };
 		VariablesExpander expander = new VariablesExpander(getProperties());
-		PropertiesManager manager = new KrauseningAwarePropertiesManager(clazz, new Properties(), scheduler, expander,
-				loadersManager, imports);
+		PropertiesManager manager = new KrauseningAwarePropertiesManager(clazz, new Properties(), scheduler,
+				hotReloadWatcher, expander, loadersManager, imports);
 		Object jmxSupport = getJMXSupport(clazz, manager);
-		PropertiesInvocationHandler handler = new PropertiesInvocationHandler(manager, jmxSupport);
+		PropertiesInvocationHandler propertiesHandler = new PropertiesInvocationHandler(manager, jmxSupport);
+		final KrauseningInvocationHandler handler = new KrauseningInvocationHandler(clazz, propertiesHandler, manager);
 		T proxy = (T) newProxyInstance(clazz.getClassLoader(), interfaces, handler);
-		handler.setProxy(proxy);
-		return proxy;
+		propertiesHandler.setProxy(proxy);
+		// registered first, so the cache is discarded before any other listener reads new values through the proxy
+		manager.addReloadListener(new ReloadListener() {
+			public void reloadPerformed(ReloadEvent event) {
+				handler.invalidate();
+			}
+		});
+		manager.addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent event) {
+				handler.invalidate();
+			}
+		});
+		return new CreatedProxy<>(proxy, manager);
 	}
 	
     private Object getJMXSupport(Class<?> clazz, PropertiesManager manager) {
         return isJMXAvailable ? new JMXSupport(clazz, manager) : null;
     }
+
+    /**
+     * A proxy and the {@link PropertiesManager} backing it.
+     */
+    private static final class CreatedProxy<T> {
+        private final T proxy;
+        private final PropertiesManager manager;
+
+        private CreatedProxy(T proxy, PropertiesManager manager) {
+            this.proxy = proxy;
+            this.manager = manager;
+        }
+    }
 }
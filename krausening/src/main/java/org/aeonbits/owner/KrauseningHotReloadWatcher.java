@@ -0,0 +1,287 @@
+package org.aeonbits.owner;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aeonbits.owner.Config.HotReload;
+import org.aeonbits.owner.Config.HotReloadType;
+import org.technologybrewery.krausening.Krausening;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects changes to the physical files behind every hot reloading {@link KrauseningConfig} proxy created by a
+ * {@link KrauseningFactory}. Each physical file in the base, extensions, and override extensions locations is tracked
+ * once, no matter how many proxies depend on it, so the cost of checking for changes does not grow with the number of
+ * proxies. A detected change is fanned out to just the proxies that depend on the changed file: {@link HotReloadType#ASYNC}
+ * proxies are reloaded by the single polling task, while {@link HotReloadType#SYNC} proxies reload on their next
+ * access.
+ */
+class KrauseningHotReloadWatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(KrauseningHotReloadWatcher.class);
+
+	private final ScheduledExecutorService scheduler;
+
+	/** Guarded by this watcher. */
+	private final List<Registration> registrations = new ArrayList<>();
+
+	/** Physical files and the registrations that depend on them; guarded by this watcher. */
+	private Map<File, WatchedFile> watchedFiles = Collections.emptyMap();
+
+	/** Krausening locations that {@link #watchedFiles} were resolved against; guarded by this watcher. */
+	private List<File> watchedLocations = Collections.emptyList();
+
+	private boolean watchedFilesStale;
+
+	/** When files were last statted; SYNC callers use it to skip checking without locking. */
+	private final AtomicLong lastCheckMillis = new AtomicLong();
+
+	private ScheduledFuture<?> pollingTask;
+	private long pollingIntervalMillis = Long.MAX_VALUE;
+
+	KrauseningHotReloadWatcher(ScheduledExecutorService scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Starts watching the files behind a proxy.
+	 *
+	 * @param manager
+	 *            the proxy's properties manager, which is only weakly referenced
+	 * @param krauseningPropertyFileNames
+	 *            file names of the properties that are managed by {@link Krausening}
+	 * @param hotReload
+	 *            how often and in which mode to check for changes
+	 * @return registration used to check for and consume changes
+	 */
+	synchronized Registration register(KrauseningAwarePropertiesManager manager,
+			List<String> krauseningPropertyFileNames, HotReload hotReload) {
+		long intervalMillis = Math.max(1L, hotReload.unit().toMillis(hotReload.value()));
+		Registration registration = new Registration(manager, krauseningPropertyFileNames, hotReload.type(),
+				intervalMillis);
+		this.registrations.add(registration);
+		this.watchedFilesStale = true;
+		// take the baseline of any newly watched files now, so changes made after registering are detected
+		updateWatchedFiles();
+		return registration;
+	}
+
+	/**
+	 * Checks for changes on behalf of a {@link HotReloadType#SYNC} proxy, reloading it if one of its files changed.
+	 * Called on every proxy method invocation, so until the proxy's interval has elapsed this costs a single volatile
+	 * read. Once it has, one caller checks while any concurrent callers skip the check rather than wait, and files are
+	 * only statted if no other proxy (or the polling task) has done so within the interval.
+	 *
+	 * @param registration
+	 *            the proxy's registration
+	 */
+	void syncCheck(Registration registration) {
+		if (!registration.gate.tryEnter()) {
+			return;
+		}
+		long intervalMillis = registration.gate.getIntervalMillis();
+		long lastCheck = this.lastCheckMillis.get();
+		long now = System.currentTimeMillis();
+		if (now - lastCheck >= intervalMillis && this.lastCheckMillis.compareAndSet(lastCheck, now)) {
+			checkForChanges();
+		}
+		if (registration.changed.getAndSet(false)) {
+			registration.reload();
+		}
+	}
+
+	private void poll() {
+		List<Registration> changedRegistrations = new ArrayList<>();
+		try {
+			this.lastCheckMillis.set(System.currentTimeMillis());
+			checkForChanges();
+			synchronized (this) {
+				for (Registration registration : this.registrations) {
+					if (registration.type == HotReloadType.ASYNC && registration.changed.getAndSet(false)) {
+						changedRegistrations.add(registration);
+					}
+				}
+			}
+			// reload outside of the lock so SYNC proxies are never blocked behind a load
+			for (Registration registration : changedRegistrations) {
+				registration.reload();
+			}
+		} catch (RuntimeException e) {
+			// an exception would cancel the polling task, ending hot reloading for every proxy
+			LOGGER.error("Could not hot reload Krausening properties", e);
+		}
+	}
+
+	/**
+	 * Stats every watched file once, flagging the registrations that depend on each file that changed.
+	 */
+	private synchronized void checkForChanges() {
+		updateWatchedFiles();
+		for (WatchedFile watchedFile : this.watchedFiles.values()) {
+			if (watchedFile.hasChanged()) {
+				LOGGER.debug("Detected change to {}", watchedFile.file);
+				for (Registration registration : watchedFile.dependents) {
+					registration.changed.set(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resolves the physical files of every live registration against the current {@link Krausening} locations, if
+	 * either has changed. Files that were already watched keep their baseline, so no change is lost.
+	 */
+	private void updateWatchedFiles() {
+		List<File> locations = Krausening.getInstance().getLocations();
+		Iterator<Registration> registrationIterator = this.registrations.iterator();
+		while (registrationIterator.hasNext()) {
+			if (registrationIterator.next().manager.get() == null) {
+				registrationIterator.remove();
+				this.watchedFilesStale = true;
+			}
+		}
+		if (!this.watchedFilesStale && locations.equals(this.watchedLocations)) {
+			return;
+		}
+
+		Map<File, WatchedFile> updatedWatchedFiles = new HashMap<>();
+		for (Registration registration : this.registrations) {
+			for (String krauseningPropertyFileName : registration.krauseningPropertyFileNames) {
+				for (File location : locations) {
+					File file = new File(location, krauseningPropertyFileName);
+					WatchedFile watchedFile = updatedWatchedFiles.get(file);
+					if (watchedFile == null) {
+						WatchedFile previous = this.watchedFiles.get(file);
+						watchedFile = (previous != null) ? new WatchedFile(previous) : new WatchedFile(file);
+						updatedWatchedFiles.put(file, watchedFile);
+					}
+					watchedFile.dependents.add(registration);
+				}
+			}
+		}
+		this.watchedFiles = updatedWatchedFiles;
+		this.watchedLocations = locations;
+		this.watchedFilesStale = false;
+		updatePollingTask();
+	}
+
+	/**
+	 * Polls at the shortest interval of any live {@link HotReloadType#ASYNC} registration, rescheduling the polling
+	 * task when that interval has changed, and cancelling it once there are none left.
+	 */
+	private void updatePollingTask() {
+		long intervalMillis = Long.MAX_VALUE;
+		for (Registration registration : this.registrations) {
+			if (registration.type == HotReloadType.ASYNC) {
+				intervalMillis = Math.min(intervalMillis, registration.gate.getIntervalMillis());
+			}
+		}
+		if (intervalMillis == this.pollingIntervalMillis) {
+			return;
+		}
+		if (this.pollingTask != null) {
+			this.pollingTask.cancel(false);
+			this.pollingTask = null;
+		}
+		this.pollingIntervalMillis = intervalMillis;
+		if (intervalMillis != Long.MAX_VALUE) {
+			this.pollingTask = this.scheduler.scheduleAtFixedRate(new Runnable() {
+				public void run() {
+					poll();
+				}
+			}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return the number of distinct physical files currently watched
+	 */
+	synchronized int getWatchedFileCount() {
+		return this.watchedFiles.size();
+	}
+
+	/**
+	 * @return the interval at which files are polled, or {@link Long#MAX_VALUE} if they are not
+	 */
+	synchronized long getPollingIntervalMillis() {
+		return this.pollingIntervalMillis;
+	}
+
+	/**
+	 * A proxy whose files are being watched.
+	 */
+	static final class Registration {
+		private final WeakReference<KrauseningAwarePropertiesManager> manager;
+		private final List<String> krauseningPropertyFileNames;
+		private final HotReloadType type;
+		private final ReloadCheckGate gate;
+		private final AtomicBoolean changed = new AtomicBoolean();
+
+		private Registration(KrauseningAwarePropertiesManager manager, List<String> krauseningPropertyFileNames,
+				HotReloadType type, long intervalMillis) {
+			this.manager = new WeakReference<>(manager);
+			this.krauseningPropertyFileNames = krauseningPropertyFileNames;
+			this.type = type;
+			this.gate = new ReloadCheckGate(intervalMillis);
+		}
+
+		boolean isSync() {
+			return this.type == HotReloadType.SYNC;
+		}
+
+		private void reload() {
+			KrauseningAwarePropertiesManager reloadableManager = this.manager.get();
+			if (reloadableManager != null) {
+				reloadableManager.reloadChangedFiles();
+			}
+		}
+	}
+
+	/**
+	 * A physical file, whether or not it currently exists, and the last state it was seen in.
+	 */
+	private static final class WatchedFile {
+		private final File file;
+		private final List<Registration> dependents = new ArrayList<>();
+		private long lastModified;
+		private long length;
+
+		private WatchedFile(File file) {
+			this.file = file;
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+		}
+
+		private WatchedFile(WatchedFile previous) {
+			this.file = previous.file;
+			this.lastModified = previous.lastModified;
+			this.length = previous.length;
+		}
+
+		/**
+		 * @return whether the file was modified, created, or deleted since last checked
+		 */
+		private boolean hasChanged() {
+			long currentLastModified = this.file.lastModified();
+			long currentLength = this.file.length();
+			if (currentLastModified == this.lastModified && currentLength == this.length) {
+				return false;
+			}
+			this.lastModified = currentLastModified;
+			this.length = currentLength;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package org.aeonbits.owner;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import org.aeonbits.owner.KrauseningConfig.DisableValueCache;
+
+/**
+ * Caches the converted return values of the property methods of a {@link KrauseningConfig} proxy, by method and
+ * arguments, in front of OWNER's {@link PropertiesInvocationHandler}. A repeated call of a property method therefore
+ * does no conversion, variable expansion, or parsing and (apart from a copy of array, collection, and map values, which
+ * callers could otherwise change) allocates nothing. Every call therefore still returns a value the caller may change,
+ * as OWNER's does. Only immutable values (e.g., strings, boxed primitives, enums, and {@code java.time} values),
+ * arrays, and the JDK's general purpose collections and maps are cached; any other value (e.g., a {@link java.util.Date}
+ * or a collection created by a custom converter) could be changed by one caller for all others, so it is converted
+ * again on every call.
+ * <p>
+ * The cache is discarded as a whole whenever the proxy's {@link PropertiesManager} reloads or a property is changed,
+ * by replacing it with an empty one, so no caller ever sees a mix of values from before and after the change. Methods
+ * (or interfaces) annotated with {@link DisableValueCache} are never cached.
+ */
+class KrauseningInvocationHandler implements InvocationHandler {
+
+	/** Stands in for a null value, which a {@link ConcurrentMap} cannot hold. */
+	private static final Object NULL = new Object();
+
+	/** Classes whose instances cannot be changed, so one instance may be returned to every caller. */
+	private static final Set<Class<?>> IMMUTABLE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+			Float.class, Double.class, BigInteger.class, BigDecimal.class, Class.class, File.class, URI.class,
+			URL.class, UUID.class, Locale.class, Pattern.class, Duration.class, Period.class, Instant.class,
+			LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetDateTime.class, ZonedDateTime.class)));
+
+	private final PropertiesInvocationHandler delegate;
+	private final PropertiesManager manager;
+	private final Set<Method> cacheableMethods;
+
+	private volatile ConcurrentMap<Object, Object> values = new ConcurrentHashMap<>();
+
+	KrauseningInvocationHandler(Class<?> clazz, PropertiesInvocationHandler delegate, PropertiesManager manager) {
+		this.delegate = delegate;
+		this.manager = manager;
+
+		Set<Method> methods = new HashSet<>();
+		for (Method method : clazz.getMethods()) {
+			if (isCacheable(clazz, method)) {
+				methods.add(method);
+			}
+		}
+		this.cacheableMethods = Collections.unmodifiableSet(methods);
+	}
+
+	/**
+	 * @return whether the value returned by the given method of the given interface may be cached (i.e., it is a
+	 *         property method of the interface itself, rather than one inherited from OWNER, and is not annotated with
+	 *         {@link DisableValueCache})
+	 */
+	static boolean isCacheable(Class<?> clazz, Method method) {
+		return !method.isDefault() && !Modifier.isStatic(method.getModifiers())
+				&& method.getReturnType() != void.class
+				&& !Config.class.getPackageName().equals(method.getDeclaringClass().getPackageName())
+				&& !method.isAnnotationPresent(DisableValueCache.class)
+				&& !method.getDeclaringClass().isAnnotationPresent(DisableValueCache.class)
+				&& !clazz.isAnnotationPresent(DisableValueCache.class);
+	}
+
+	/**
+	 * @return whether every value of the given type is immutable (i.e., it is primitive, an enum, or one of the
+	 *         {@link #IMMUTABLE_TYPES}), so one value may be returned to every caller; subclasses of those classes
+	 *         are not, as they may add state
+	 */
+	static boolean isImmutableType(Class<?> type) {
+		return type.isPrimitive() || type.isEnum() || IMMUTABLE_TYPES.contains(type)
+				|| (type.getSuperclass() != null && type.getSuperclass().isEnum());
+	}
+
+	/**
+	 * Discards every cached value.
+	 */
+	void invalidate() {
+		this.values = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (!this.cacheableMethods.contains(method)) {
+			return this.delegate.invoke(proxy, method, args);
+		}
+
+		// a SYNC hot reload must be able to invalidate the cache before it is read
+		this.manager.syncReloadCheck();
+		ConcurrentMap<Object, Object> currentValues = this.values;
+		Object key = (args == null || args.length == 0) ? method : new InvocationKey(method, args);
+		Object value = currentValues.get(key);
+		if (value == null) {
+			value = this.delegate.invoke(proxy, method, args);
+			if (value == null) {
+				value = NULL;
+			} else if (!isImmutableType(value.getClass()) && !value.getClass().isArray()
+					&& !(isCollection(value) && copyOfCollection(value) != null)) {
+				return value;
+			}
+			// if invalidated in the meantime, this only populates the discarded cache
+			currentValues.putIfAbsent(key, value);
+		}
+		if (value == NULL) {
+			return null;
+		}
+		if (value.getClass().isArray()) {
+			return copyOf(value);
+		}
+		return isCollection(value) ? copyOfCollection(value) : value;
+	}
+
+	private static boolean isCollection(Object value) {
+		return value instanceof Collection || value instanceof Map;
+	}
+
+	/**
+	 * @return a shallow copy, of the same class, of a collection or map that is one of the JDK's general purpose
+	 *         implementations, or null if it is not
+	 */
+	private static Object copyOfCollection(Object value) {
+		Class<?> type = value.getClass();
+		if (type == ArrayList.class) {
+			return ((ArrayList<?>) value).clone();
+		} else if (type == LinkedList.class) {
+			return ((LinkedList<?>) value).clone();
+		} else if (type == HashSet.class || type == LinkedHashSet.class) {
+			return ((HashSet<?>) value).clone();
+		} else if (type == TreeSet.class) {
+			return ((TreeSet<?>) value).clone();
+		} else if (type == HashMap.class || type == LinkedHashMap.class) {
+			return ((HashMap<?, ?>) value).clone();
+		} else if (type == TreeMap.class) {
+			return ((TreeMap<?, ?>) value).clone();
+		}
+		return null;
+	}
+
+	private static Object copyOf(Object array) {
+		int length = Array.getLength(array);
+		Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	/**
+	 * Identifies a call of a method that takes arguments.
+	 */
+	private static final class InvocationKey {
+		private final Method method;
+		private final Object[] args;
+		private final int hashCode;
+
+		private InvocationKey(Method method, Object[] args) {
+			this.method = method;
+			this.args = args.clone();
+			this.hashCode = 31 * method.hashCode() + Arrays.deepHashCode(this.args);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof InvocationKey)) {
+				return false;
+			}
+			InvocationKey other = (InvocationKey) obj;
+			return this.method.equals(other.method) && Arrays.deepEquals(this.args, other.args);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+}
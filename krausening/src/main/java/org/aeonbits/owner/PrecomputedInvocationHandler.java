@@ -0,0 +1,117 @@
+package org.aeonbits.owner;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers the property methods of a {@link KrauseningConfig} created by
+ * {@link KrauseningConfigFactory#createPrecomputed(Class, Map...)} from results computed ahead of time by the regular
+ * proxy, so calling one costs a map lookup rather than a trip through OWNER's key lookup, type conversion, and variable
+ * expansion. Every other method (e.g., those of {@link Accessible} and {@link Mutable}, and property methods that take
+ * arguments or return mutable values) is passed to the regular proxy.
+ * <p>
+ * The results of all property methods are recomputed together whenever the proxy reloads or a property is changed,
+ * and published as one immutable map, so a call never sees a value or error from before the change together with one
+ * from after it.
+ */
+final class PrecomputedInvocationHandler implements InvocationHandler {
+
+	private static final Method EQUALS;
+
+	static {
+		try {
+			EQUALS = Object.class.getMethod("equals", Object.class);
+		} catch (NoSuchMethodException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** The regular proxy, which computes the results and implements all other methods. */
+	private final Object delegate;
+	private final InvocationHandler delegateHandler;
+	private final PropertiesManager manager;
+	private final List<Method> propertyMethods;
+
+	private volatile Map<Method, Result> results = Collections.emptyMap();
+
+	PrecomputedInvocationHandler(Class<?> clazz, Object delegate, InvocationHandler delegateHandler,
+			PropertiesManager manager) {
+		this.delegate = delegate;
+		this.delegateHandler = delegateHandler;
+		this.manager = manager;
+
+		List<Method> methods = new ArrayList<>();
+		for (Method method : clazz.getMethods()) {
+			if (isPrecomputed(clazz, method)) {
+				methods.add(method);
+			}
+		}
+		this.propertyMethods = Collections.unmodifiableList(methods);
+	}
+
+	/**
+	 * @return whether the result of the given method is computed ahead of time (i.e., it takes no arguments, its value
+	 *         may be cached, and its value is immutable, so it may be returned to every caller)
+	 */
+	private static boolean isPrecomputed(Class<?> clazz, Method method) {
+		return method.getParameterCount() == 0 && KrauseningInvocationHandler.isCacheable(clazz, method)
+				&& KrauseningInvocationHandler.isImmutableType(method.getReturnType());
+	}
+
+	/**
+	 * Recomputes the result of every property method from the regular proxy.
+	 */
+	synchronized void refresh() {
+		Map<Method, Result> refreshed = new HashMap<>();
+		for (Method method : this.propertyMethods) {
+			Object value = null;
+			Throwable error = null;
+			try {
+				value = this.delegateHandler.invoke(this.delegate, method, null);
+			} catch (Throwable e) {
+				error = e;
+			}
+			refreshed.put(method, new Result(value, error));
+		}
+		this.results = refreshed;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		// a SYNC hot reload refreshes the results before they are read
+		this.manager.syncReloadCheck();
+		Result result = this.results.get(method);
+		if (result != null) {
+			return result.get();
+		}
+		if (EQUALS.equals(method)) {
+			return proxy == args[0] || this.delegate.equals(args[0]);
+		}
+		return this.delegateHandler.invoke(this.delegate, method, args);
+	}
+
+	/**
+	 * The value a property method returned, or the exception it threw, when last computed.
+	 */
+	private static final class Result {
+		private final Object value;
+		private final Throwable error;
+
+		private Result(Object value, Throwable error) {
+			this.value = value;
+			this.error = error;
+		}
+
+		private Object get() throws Throwable {
+			if (this.error != null) {
+				throw this.error;
+			}
+			return this.value;
+		}
+	}
+}
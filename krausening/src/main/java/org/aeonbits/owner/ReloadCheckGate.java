@@ -0,0 +1,42 @@
+package org.aeonbits.owner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits a {@link Config.HotReloadType#SYNC} hot reload check to at most once per interval without locking. Checks are
+ * made on every proxy method invocation, so the common case (the interval has not yet elapsed) is a single volatile
+ * read, and when the interval has elapsed, exactly one caller wins the right to check while concurrent callers skip it.
+ */
+final class ReloadCheckGate {
+
+	private final long intervalMillis;
+	private final AtomicLong nextCheckMillis;
+
+	/**
+	 * @param intervalMillis
+	 *            minimum time between checks
+	 */
+	ReloadCheckGate(long intervalMillis) {
+		this.intervalMillis = intervalMillis;
+		this.nextCheckMillis = new AtomicLong(System.currentTimeMillis() + intervalMillis);
+	}
+
+	/**
+	 * @return whether the caller should check now; if so, no other caller will be told to check until the interval
+	 *         has elapsed again
+	 */
+	boolean tryEnter() {
+		long next = this.nextCheckMillis.get();
+		if (System.currentTimeMillis() < next) {
+			return false;
+		}
+		return this.nextCheckMillis.compareAndSet(next, System.currentTimeMillis() + this.intervalMillis);
+	}
+
+	/**
+	 * @return minimum time between checks
+	 */
+	long getIntervalMillis() {
+		return this.intervalMillis;
+	}
+}
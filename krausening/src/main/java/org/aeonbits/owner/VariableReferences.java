@@ -0,0 +1,86 @@
+package org.aeonbits.owner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.technologybrewery.krausening.KrauseningException;
+
+/**
+ * Follows every ${variable} reference in a set of properties up front, exactly as OWNER's {@link StrSubstitutor}
+ * does when each value is read: references are followed to the value of the referenced property, or to its
+ * {@link Config.DefaultValue} if it is not set. Each value is followed once, no matter how many other values refer to
+ * it, and circular references are reported as an error naming the cycle rather than overflowing the stack when one of
+ * them is read.
+ */
+final class VariableReferences {
+
+	/** Same pattern as {@link StrSubstitutor}. */
+	private static final Pattern VARIABLE = Pattern.compile("\\$\\{(.+?)\\}");
+
+	private final Properties source;
+	private final Map<String, String> defaults;
+	private final Set<String> checked = new HashSet<>();
+	private final Set<String> checking = new LinkedHashSet<>();
+
+	private VariableReferences(Properties source, Map<String, String> defaults) {
+		this.source = source;
+		this.defaults = defaults;
+	}
+
+	/**
+	 * @param source
+	 *            properties that may contain ${variable} references
+	 * @param defaults
+	 *            default values of properties, used for references to properties that are not in the source, as
+	 *            OWNER does
+	 * @throws KrauseningException
+	 *             if any properties refer to each other in a cycle
+	 */
+	static void checkForCycles(Properties source, Map<String, String> defaults) {
+		VariableReferences references = new VariableReferences(source, defaults);
+		for (String key : source.stringPropertyNames()) {
+			references.check(key);
+		}
+	}
+
+	private void check(String key) {
+		if (this.checked.contains(key)) {
+			return;
+		}
+		String value = this.source.getProperty(key);
+		if (value == null) {
+			value = this.defaults.get(key);
+		}
+		if (value != null && value.indexOf("${") >= 0) {
+			if (!this.checking.add(key)) {
+				throw new KrauseningException("Circular variable reference: " + describeCycle(key));
+			}
+			Matcher matcher = VARIABLE.matcher(value);
+			while (matcher.find()) {
+				check(matcher.group(1));
+			}
+			this.checking.remove(key);
+		}
+		this.checked.add(key);
+	}
+
+	private String describeCycle(String repeatedKey) {
+		List<String> cycle = new ArrayList<>();
+		boolean inCycle = false;
+		for (String key : this.checking) {
+			inCycle |= key.equals(repeatedKey);
+			if (inCycle) {
+				cycle.add("${" + key + "}");
+			}
+		}
+		cycle.add("${" + repeatedKey + "}");
+		return String.join(" -> ", cycle);
+	}
+}
@@ -0,0 +1,44 @@
+package org.technologybrewery.krausening;
+
+import java.util.Properties;
+
+import org.jasypt.properties.EncryptableProperties;
+
+/**
+ * Drop-in replacement for Jasypt's {@link EncryptableProperties} that
+ * transparently decrypts ENC(...) values as they are read. Unlike
+ * {@link EncryptableProperties}, decryption is delegated to a
+ * {@link PropertyValueDecryptor} that may memoize decrypted values for the
+ * lifetime of a single Krausening load.
+ */
+final class DecryptingProperties extends Properties {
+
+    private static final long serialVersionUID = -2395620476318419052L;
+
+    private final transient PropertyValueDecryptor decryptor;
+
+    /**
+     * @param decryptor
+     *            decrypts ENC(...) values as they are read
+     */
+    DecryptingProperties(PropertyValueDecryptor decryptor) {
+        this.decryptor = decryptor;
+    }
+
+    @Override
+    public String getProperty(String key) {
+        return decryptor.decrypt(super.getProperty(key));
+    }
+
+    @Override
+    public String getProperty(String key, String defaultValue) {
+        return decryptor.decrypt(super.getProperty(key, defaultValue));
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = super.get(key);
+        return decryptor.decrypt((value instanceof String) ? (String) value : null);
+    }
+
+}
@@ -0,0 +1,415 @@
+package org.technologybrewery.krausening;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable, read-optimized map of property names to values. Entries are
+ * stored in a single open-addressing (linear probing) array of alternating
+ * keys and values, so there are no per-entry objects, no boxing, and no
+ * locking on reads. Once built, the map can be shared freely between threads
+ * and cannot be changed by callers.
+ *
+ * Encrypted (ENC(...)) values are decrypted as they are read, exactly as they
+ * are by the {@link Properties} returned from
+ * {@link Krausening#getProperties(String)}.
+ *
+ * A map may be layered over a base map that holds the entries it does not
+ * override, so that a file that only a few entries are overridden in shares
+ * the rest with every other map layered over the same base.
+ */
+public final class FrozenPropertyMap {
+
+    /** Maximum ratio of entries to slots; keeps probe sequences short. */
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private static final FrozenPropertyMap EMPTY = new FrozenPropertyMap(new String[2], 0, null, null);
+
+    /** Alternating keys and values; a null key marks an empty slot. */
+    private final String[] table;
+
+    private final int mask;
+
+    private final int size;
+
+    /** Decrypts values on read, or null if no value is encrypted. */
+    private final PropertyValueDecryptor decryptor;
+
+    /** Entries that this map does not hold itself, or null if there are none. */
+    private final FrozenPropertyMap base;
+
+    /**
+     * @param size
+     *            the number of properties, including those of the base that
+     *            are not overridden
+     */
+    private FrozenPropertyMap(String[] table, int size, PropertyValueDecryptor decryptor, FrozenPropertyMap base) {
+        this.table = table;
+        this.mask = (table.length >> 1) - 1;
+        this.size = size;
+        this.decryptor = decryptor;
+        this.base = base;
+    }
+
+    /**
+     * Creates a frozen copy of the given map. Entries whose key or value is not
+     * a {@link String} are skipped, matching {@link Properties#getProperty(String)}.
+     *
+     * @param source
+     *            the entries to copy (e.g., a {@link Properties} instance)
+     * @return immutable copy
+     */
+    public static FrozenPropertyMap copyOf(Map<?, ?> source) {
+        return copyOf(source, null);
+    }
+
+    /**
+     * Creates a frozen copy of the given map that decrypts ENC(...) values on
+     * read.
+     *
+     * @param source
+     *            the entries to copy
+     * @param decryptor
+     *            decrypts encrypted values, or null if values are never
+     *            encrypted
+     * @return immutable copy
+     */
+    static FrozenPropertyMap copyOf(Map<?, ?> source, PropertyValueDecryptor decryptor) {
+        if (source.isEmpty()) {
+            return EMPTY;
+        }
+
+        // a power of two, always leaving at least one empty slot to end probing
+        int minimumCapacity = (int) Math.ceil(source.size() / LOAD_FACTOR);
+        int capacity = (minimumCapacity <= 2) ? 2 : Integer.highestOneBit(minimumCapacity - 1) << 1;
+        String[] table = new String[capacity << 1];
+        int mask = capacity - 1;
+        int size = 0;
+        boolean hasEncryptedValues = false;
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof String)) {
+                continue;
+            }
+            String key = (String) entry.getKey();
+            String value = (String) entry.getValue();
+            int slot = spread(key.hashCode()) & mask;
+            while (table[slot << 1] != null && !table[slot << 1].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot << 1] == null) {
+                size++;
+            }
+            table[slot << 1] = key;
+            table[(slot << 1) + 1] = value;
+            hasEncryptedValues |= (decryptor != null) && decryptor.isEncrypted(value);
+        }
+        return new FrozenPropertyMap(table, size, hasEncryptedValues ? decryptor : null, null);
+    }
+
+    /**
+     * Creates a map of the given overrides layered over a base map. Only the
+     * overrides are copied; every other property is looked up in the base.
+     *
+     * @param overrides
+     *            the entries that take precedence over the base
+     * @param decryptor
+     *            decrypts encrypted overrides, or null if values are never
+     *            encrypted
+     * @param base
+     *            the entries that are not overridden, which decrypts its own
+     *            values
+     * @return immutable layered map
+     */
+    static FrozenPropertyMap layer(Map<?, ?> overrides, PropertyValueDecryptor decryptor, FrozenPropertyMap base) {
+        FrozenPropertyMap layer = copyOf(overrides, decryptor);
+        if (layer.isEmpty()) {
+            return base;
+        }
+        int size = base.size;
+        for (int index = 0; index < layer.table.length; index += 2) {
+            if (layer.table[index] != null && !base.containsKey(layer.table[index])) {
+                size++;
+            }
+        }
+        return new FrozenPropertyMap(layer.table, size, layer.decryptor, base);
+    }
+
+    /**
+     * @param newDecryptor
+     *            decrypts encrypted values, or null if values should be read
+     *            as written
+     * @return a map that shares this map's entries but decrypts them with the
+     *         given decryptor
+     */
+    FrozenPropertyMap withDecryptor(PropertyValueDecryptor newDecryptor) {
+        if (newDecryptor == decryptor && base == null) {
+            return this;
+        }
+        FrozenPropertyMap newBase = (base != null) ? base.withDecryptor(newDecryptor) : null;
+        return new FrozenPropertyMap(table, size, newDecryptor, newBase);
+    }
+
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int slot = spread(key.hashCode()) & mask;
+        String candidate;
+        while ((candidate = table[slot << 1]) != null) {
+            if (candidate.equals(key)) {
+                return slot << 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of slots, which bounds the values returned by
+     *         {@link #slotOf(String)}; the slots of a base map follow this
+     *         map's own
+     */
+    int slotCount() {
+        return (table.length >> 1) + ((base != null) ? base.slotCount() : 0);
+    }
+
+    /**
+     * @param key
+     *            the property name
+     * @return the slot holding the property, or -1 if it is not set
+     */
+    int slotOf(String key) {
+        int index = indexOf(key);
+        if (index >= 0 || base == null) {
+            return index >> 1;
+        }
+        int baseSlot = base.slotOf(key);
+        return (baseSlot < 0) ? -1 : (table.length >> 1) + baseSlot;
+    }
+
+    /**
+     * @param slot
+     *            a slot between 0 and {@link #slotCount()}
+     * @return the property name in the slot, or null if the slot is empty or
+     *         holds a base property that this map overrides
+     */
+    String keyAt(int slot) {
+        int ownSlots = table.length >> 1;
+        if (slot < ownSlots) {
+            return table[slot << 1];
+        }
+        String key = base.keyAt(slot - ownSlots);
+        return (key != null && indexOf(key) < 0) ? key : null;
+    }
+
+    /**
+     * @param slot
+     *            an occupied slot
+     * @return the (decrypted) value in the slot
+     */
+    String valueAtSlot(int slot) {
+        int ownSlots = table.length >> 1;
+        return (slot < ownSlots) ? valueAt(slot << 1) : base.valueAtSlot(slot - ownSlots);
+    }
+
+    /**
+     * Returns the value of the given property.
+     *
+     * @param key
+     *            the property name
+     * @return the (decrypted) value, or null if the property is not set
+     */
+    public String get(String key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return valueAt(index);
+        }
+        return (base != null) ? base.get(key) : null;
+    }
+
+    /**
+     * Returns the value of the given property, or a default if it is not set.
+     *
+     * @param key
+     *            the property name
+     * @param defaultValue
+     *            returned if the property is not set
+     * @return the (decrypted) value, or the default
+     */
+    public String get(String key, String defaultValue) {
+        String value = get(key);
+        return (value != null) ? value : defaultValue;
+    }
+
+    /**
+     * @param key
+     *            the property name
+     * @return whether the property is set
+     */
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0 || (base != null && base.containsKey(key));
+    }
+
+    /**
+     * @return the number of properties
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether there are no properties
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the property names. The set is a read-only view that is backed
+     * by this map.
+     *
+     * @return property names, in no particular order
+     */
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new KeyIterator();
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return (key instanceof String) && containsKey((String) key);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Performs the given action for each property, in no particular order.
+     *
+     * @param action
+     *            receives each name and (decrypted) value
+     */
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (int index = 0; index < table.length; index += 2) {
+            if (table[index] != null) {
+                action.accept(table[index], valueAt(index));
+            }
+        }
+        if (base != null) {
+            base.forEach((key, value) -> {
+                if (indexOf(key) < 0) {
+                    action.accept(key, value);
+                }
+            });
+        }
+    }
+
+    /**
+     * Copies the stored (still encrypted) entries into the given properties.
+     *
+     * @param properties
+     *            receives every entry
+     */
+    void copyRawEntriesTo(Properties properties) {
+        forEachRaw(properties::put);
+    }
+
+    /**
+     * @param key
+     *            the property name
+     * @return the stored (still encrypted) value, or null if the property is
+     *         not set
+     */
+    String getRaw(String key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return table[index + 1];
+        }
+        return (base != null) ? base.getRaw(key) : null;
+    }
+
+    /**
+     * Performs the given action for each stored (still encrypted) entry, in no
+     * particular order.
+     *
+     * @param action
+     *            receives each name and stored value
+     */
+    void forEachRaw(BiConsumer<? super String, ? super String> action) {
+        for (int index = 0; index < table.length; index += 2) {
+            if (table[index] != null) {
+                action.accept(table[index], table[index + 1]);
+            }
+        }
+        if (base != null) {
+            base.forEachRaw((key, value) -> {
+                if (indexOf(key) < 0) {
+                    action.accept(key, value);
+                }
+            });
+        }
+    }
+
+    private String valueAt(int index) {
+        String value = table[index + 1];
+        return (decryptor != null) ? decryptor.decrypt(value) : value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        // never render decrypted values
+        forEachRaw((key, value) -> {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(key).append('=').append(value);
+        });
+        return result.append('}').toString();
+    }
+
+    private final class KeyIterator implements Iterator<String> {
+
+        private final int slotCount = slotCount();
+
+        private int nextSlot = advance(0);
+
+        private int advance(int slot) {
+            while (slot < slotCount && keyAt(slot) == null) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < slotCount;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String key = keyAt(nextSlot);
+            nextSlot = advance(nextSlot + 1);
+            return key;
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.technologybrewery.krausening;
+
+/**
+ * Counters of the registry of {@link Krausening} instances returned by
+ * {@link Krausening#getInstance(String)}, taken at one point in time. Useful
+ * for sizing {@link Krausening#INSTANCE_REGISTRY_MAX_SIZE} and
+ * {@link Krausening#INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS}.
+ */
+public final class InstanceRegistryStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+
+    InstanceRegistryStatistics(long hitCount, long missCount, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    /**
+     * @return the number of requests that returned an already registered
+     *         instance
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of requests that created (and loaded) a new instance,
+     *         including instances created again after being evicted
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of instances removed because the registry was full,
+     *         because they were idle for too long, or because their soft
+     *         reference was cleared
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of registered instances, including the default
+     *         instance and instances whose soft reference may have been
+     *         cleared but not yet removed
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the fraction of requests that were hits, or 1.0 if there were no
+     *         requests
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return (requestCount > 0) ? (double) hitCount / requestCount : 1.0d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d instance(s), %d hit(s), %d miss(es) (%.2f hit rate), %d eviction(s)", size,
+                hitCount, missCount, getHitRate(), evictionCount);
+    }
+
+}
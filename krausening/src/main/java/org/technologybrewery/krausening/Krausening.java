@@ -1,21 +1,36 @@
 package org.technologybrewery.krausening;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FilenameFilter;
 import java.io.IOException;
-import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 import org.apache.commons.io.filefilter.SuffixFileFilter;
 import org.apache.commons.lang3.StringUtils;
-import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
 import org.jasypt.iv.RandomIvGenerator;
-import org.jasypt.properties.EncryptableProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +57,10 @@ import org.slf4j.LoggerFactory;
  * 
  * Only .properties files will be loaded. Any other file encountered will be
  * skipped.
+ * 
+ * "KRAUSENING_BASE" may instead point to a {@link KrauseningBundle} compiled at
+ * build time, in which case the base, extensions, and override extensions are
+ * all loaded from the bundle.
  */
 public final class Krausening {
 
@@ -65,11 +84,86 @@ public final class Krausening {
     /** Value of a set a master encryption password. */
     public static final String KRAUSENING_PASSWORD = "KRAUSENING_PASSWORD";
 
+    /**
+     * Whether decrypted values are cached for the lifetime of a load (defaults
+     * to true). Set to false to keep plaintext values in memory only as long
+     * as the caller holds them.
+     */
+    public static final String CACHE_DECRYPTED_VALUES = "KRAUSENING_CACHE_DECRYPTED_VALUES";
+
+    /**
+     * Number of underlying encryptors used to decrypt values concurrently
+     * (defaults to the number of available processors).
+     */
+    public static final String ENCRYPTOR_POOL_SIZE = "KRAUSENING_ENCRYPTOR_POOL_SIZE";
+
+    /**
+     * Number of threads used to read the files of a location concurrently.
+     * Defaults to 1, which reads files sequentially.
+     */
+    public static final String LOAD_PARALLELISM = "KRAUSENING_LOAD_PARALLELISM";
+
+    /**
+     * Whether to defer reading each properties file until it is first
+     * requested (defaults to false). When enabled, loading only records which
+     * files exist in each location.
+     */
+    public static final String LAZY_LOAD = "KRAUSENING_LAZY_LOAD";
+
+    /**
+     * How long, in milliseconds, watched locations must be quiet before
+     * changed files are reloaded (defaults to 500). See
+     * {@link #startWatchingForChanges()}.
+     */
+    public static final String WATCH_DEBOUNCE_MILLIS = "KRAUSENING_WATCH_DEBOUNCE_MILLIS";
+
+    /**
+     * Whether to register a {@link KrauseningMetricsCollectorMBean} with the
+     * platform MBean server (defaults to false). See
+     * {@link KrauseningMetrics}.
+     */
+    public static final String METRICS_MBEAN = "KRAUSENING_METRICS_MBEAN";
+
+    /**
+     * Path of a file in which to cache the parsed contents of every loaded
+     * file, so that unchanged files are not parsed again by later loads, such
+     * as when a container restarts (not set by default, and not used when
+     * loading lazily). Instances with an override extensions subfolder use a
+     * cache file named after the subfolder alongside it.
+     */
+    public static final String SNAPSHOT_CACHE = "KRAUSENING_SNAPSHOT_CACHE";
+
+    /**
+     * Maximum number of instances created by {@link #getInstance(String)} to
+     * keep registered (not set by default, keeping every instance). Once
+     * exceeded, the least recently requested instances are evicted.
+     */
+    public static final String INSTANCE_REGISTRY_MAX_SIZE = "KRAUSENING_INSTANCE_REGISTRY_MAX_SIZE";
+
+    /**
+     * How long, in milliseconds, an instance created by
+     * {@link #getInstance(String)} may go unrequested before it is evicted
+     * (not set by default, keeping idle instances).
+     */
+    public static final String INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS = "KRAUSENING_INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS";
+
+    /**
+     * Whether instances created by {@link #getInstance(String)} are only
+     * softly referenced by the registry, so the garbage collector may evict
+     * them when memory runs low (defaults to false).
+     */
+    public static final String INSTANCE_REGISTRY_SOFT_REFERENCES = "KRAUSENING_INSTANCE_REGISTRY_SOFT_REFERENCES";
+
+    private static final long DEFAULT_WATCH_DEBOUNCE_MILLIS = 500L;
+
+    private static final String ENCRYPTION_ALGORITHM = "PBEWithHMACSHA512AndAES_256";
+
     /**
      * Contains the set of all properties managed by the base + extension
-     * locations.
+     * locations. A new snapshot is fully built before it is swapped in, so
+     * readers never block and never see a partially loaded tree.
      */
-    private Map<String, Properties> managedProperties;
+    private volatile KrauseningSnapshot snapshot = KrauseningSnapshot.EMPTY;
 
     /** The location which contains base properties. */
     private String baseLocation;
@@ -84,10 +178,57 @@ public final class Krausening {
 
     /** Whether or not KRAUSENING_PASSWORD is non-blank. */
     private boolean hasMasterPassword;
+
+    /**
+     * Encryptor shared by every encrypted file of this instance, or null if no
+     * master password is set.
+     */
+    private PooledPBEStringEncryptor encryptor;
+
+    /** The master password and pool size that {@link #encryptor} was built with. */
+    private String encryptorPassword;
+    private int encryptorPoolSize;
+
+    /**
+     * Decrypted values shared by all files of the load in progress, or null if
+     * decrypted values should not be cached.
+     */
+    private ConcurrentMap<String, String> decryptedValueCache;
+
+    /** Number of times loading properties from disk has started. */
+    private volatile long loadsStarted;
+
+    private final ReloadCoordinator reloadCoordinator = new ReloadCoordinator(this);
+
+    private final PropertyChangeNotifier changeNotifier = new PropertyChangeNotifier();
+
+    /** The bundle the current properties were loaded from, or null if they were loaded from directories. */
+    private volatile KrauseningBundle loadedBundle;
+
+    /** Watches the loaded locations for changes, or null if not watching. */
+    private volatile KrauseningFileWatcher fileWatcher;
     
-    private static Map<String, Krausening> instanceMap = new HashMap<>();
-    
-    private static String defaultInstanceKey = UUID.randomUUID().toString();
+    /**
+     * Registry of all instances, keyed by override extensions subfolder (or
+     * {@link #defaultInstanceKey} for the default instance, which is never
+     * evicted). Reads are lock-free.
+     */
+    private static final KrauseningInstanceRegistry instanceRegistry = new KrauseningInstanceRegistry();
+
+    private static final String defaultInstanceKey = UUID.randomUUID().toString();
+
+    /** Registry key used when a null override extensions subfolder is requested. */
+    private static final String noOverrideInstanceKey = UUID.randomUUID().toString();
+
+    /**
+     * Base and extensions locations loaded by any instance, keyed by their
+     * paths, so that instances that differ only in their override extensions
+     * subfolder parse and hold them once. Each layer is replaced while
+     * synchronizing on its reference, so only instances loading the same
+     * locations wait for each other.
+     */
+    private static final ConcurrentMap<String, AtomicReference<SharedBaseLayer>> sharedBaseLayers =
+            new ConcurrentHashMap<>();
 
     /**
      * Private constructor to prevent external construction of this singleton
@@ -101,17 +242,11 @@ public final class Krausening {
      * @return singleton reference to Krausening
      */
     public static Krausening getInstance() {
-    	Krausening instance = instanceMap.get(defaultInstanceKey);
-		if(instance == null) {
-			instance = new Krausening();
-			instance.loadProperties();
-			instanceMap.put(defaultInstanceKey, instance);
-		}
-		return instance;
+        return getOrCreateInstance(defaultInstanceKey, null);
     }
     
     protected void updateDefaultInstance() {
-		instanceMap.put(defaultInstanceKey, this);
+        instanceRegistry.put(defaultInstanceKey, this, true);
     }
     
     /**
@@ -121,65 +256,370 @@ public final class Krausening {
      * @return
      */
     public static Krausening getInstance(String overrideExtensionsSubfolder) {
-    	Krausening overrideInstance = instanceMap.get(overrideExtensionsSubfolder);
-		if(overrideInstance == null) {
-			overrideInstance = new Krausening();
-			overrideInstance.setOverrideExtensionsSubfolder(overrideExtensionsSubfolder);
-			overrideInstance.loadProperties();
-			instanceMap.put(overrideExtensionsSubfolder, overrideInstance);
-		}
-		return overrideInstance;
-	}
+        String instanceKey = (overrideExtensionsSubfolder != null) ? overrideExtensionsSubfolder : noOverrideInstanceKey;
+        return getOrCreateInstance(instanceKey, overrideExtensionsSubfolder);
+    }
+
+    /**
+     * Returns counters of the registry of instances returned by
+     * {@link #getInstance()} and {@link #getInstance(String)}, for sizing
+     * {@link #INSTANCE_REGISTRY_MAX_SIZE} and
+     * {@link #INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS}.
+     * 
+     * @return registry statistics, as of now
+     */
+    public static InstanceRegistryStatistics getInstanceRegistryStatistics() {
+        return instanceRegistry.getStatistics();
+    }
+
+    /**
+     * Returns the registered instance for the given key, creating and loading
+     * it if needed. Concurrent callers for the same key share one instance and
+     * its properties are loaded exactly once. Once an instance has been
+     * loaded, lookups do not take any locks. An instance that was evicted is
+     * created and loaded again.
+     * 
+     * @param instanceKey
+     *            the registry key
+     * @param overrideExtensionsSubfolder
+     *            the override extensions subfolder for a newly created
+     *            instance
+     * @return loaded instance
+     */
+    private static Krausening getOrCreateInstance(String instanceKey, final String overrideExtensionsSubfolder) {
+        Krausening instance = instanceRegistry.get(instanceKey);
+        if (instance == null) {
+            // register the (cheap) instance before loading it, so that loading
+            // from disk never blocks lookups or evictions of other keys
+            Krausening created = new Krausening();
+            created.setOverrideExtensionsSubfolder(overrideExtensionsSubfolder);
+            instance = instanceRegistry.register(instanceKey, created, defaultInstanceKey.equals(instanceKey));
+        }
+        instance.ensureLoaded();
+        return instance;
+    }
+
+    /**
+     * Loads properties if this instance has never been loaded. Callers racing
+     * on a new instance wait for the first load rather than repeating it.
+     */
+    private void ensureLoaded() {
+        if (snapshot == KrauseningSnapshot.EMPTY) {
+            synchronized (this) {
+                if (snapshot == KrauseningSnapshot.EMPTY) {
+                    loadProperties(true);
+                }
+            }
+        }
+    }
 
     /**
      * Loads the properties defined by the base and extension locations, making
      * them accessible for use by Krausening clients. This method can also be
-     * leveraged to refresh values at any time.
+     * leveraged to refresh values at any time. Properties previously loaded
+     * remain visible to readers until the refreshed set has been completely
+     * loaded.
+     * <p>
+     * Every location is always read again, including the base and extensions
+     * locations shared with other instances, and the shared copy read here is
+     * used by instances loaded afterwards.
      */
     public void loadProperties() {
-        long start = System.currentTimeMillis();
+        loadProperties(false);
+    }
+
+    /**
+     * Loads the properties defined by the base and extension locations.
+     * 
+     * @param reuseSharedLayer
+     *            whether the base and extensions locations (or bundle) already
+     *            read by another instance may be reused as long as none of
+     *            their files has changed since, as when an instance is created
+     *            or hot reloaded, rather than read again
+     */
+    synchronized void loadProperties(boolean reuseSharedLayer) {
+        loadsStarted++;
+        long start = System.nanoTime();
         LOGGER.debug("Loading Krausening properties...");
 
-        managedProperties = new ConcurrentHashMap<>();
+        Map<String, ManagedPropertiesFile> managedProperties = new HashMap<>();
+        List<LocationLoadStatistics> loadStatistics = new ArrayList<>();
+        Map<String, File> locations = new LinkedHashMap<>();
 
         boolean hasLocations = setLocations();
 
         setEncryptionFoundation();
 
-        if (hasLocations) {
-            loadPropertiesFromLocation(new File(baseLocation), BASE_LOCATION);
-
-            if (StringUtils.isNotBlank(extensionsLocation)) {
-                loadPropertiesFromLocation(new File(extensionsLocation), EXTENSIONS_LOCATION);
-            }
+        PropertiesFactory propertiesFactory = createPropertiesFactory();
+        boolean lazy = Boolean.parseBoolean(System.getProperty(LAZY_LOAD));
+        KrauseningBundle bundle = null;
+        if (hasLocations && KrauseningBundle.isBundle(new File(baseLocation))) {
+            bundle = loadBundle(new File(baseLocation), managedProperties, loadStatistics, locations,
+                    propertiesFactory, reuseSharedLayer);
 
-            if (StringUtils.isNotBlank(overrideExtensionSubfolder)) {
-                String baseOverrideLocation = System.getProperty(OVERRIDE_EXTENSIONS_LOCATION);
-                if (StringUtils.isBlank(baseOverrideLocation)) {
-                    LOGGER.error("Trying to use a override subfolder {} without the base folder set {}...",
-                            overrideExtensionSubfolder, OVERRIDE_EXTENSIONS_LOCATION);
+        } else if (hasLocations) {
+            int parallelism = lazy ? 1 : getLoadParallelism();
+            KrauseningSnapshotCache snapshotCache = lazy ? null : openSnapshotCache();
+            ExecutorService loadExecutor = (parallelism > 1) ? createLoadExecutor(parallelism) : null;
+            try {
+                PropertiesLocationLoader loader = new PropertiesLocationLoader(lazy, loadStatistics, locations,
+                        loadExecutor, parallelism, snapshotCache);
+                if (lazy) {
+                    loader.load(new File(baseLocation), BASE_LOCATION);
+                    if (StringUtils.isNotBlank(extensionsLocation)) {
+                        loader.load(new File(extensionsLocation), EXTENSIONS_LOCATION);
+                    }
                 } else {
-                    // Get the path relative to the override extensions location
-                    File overrideExtensionLocationPath = new File(baseOverrideLocation, overrideExtensionSubfolder);
+                    loader.layerOn(
+                            getSharedBaseLayer(loadExecutor, parallelism, snapshotCache, reuseSharedLayer));
+                }
+
+                if (StringUtils.isNotBlank(overrideExtensionSubfolder)) {
+                    String baseOverrideLocation = System.getProperty(OVERRIDE_EXTENSIONS_LOCATION);
+                    if (StringUtils.isBlank(baseOverrideLocation)) {
+                        LOGGER.error("Trying to use a override subfolder {} without the base folder set {}...",
+                                overrideExtensionSubfolder, OVERRIDE_EXTENSIONS_LOCATION);
+                    } else {
+                        // Get the path relative to the override extensions location
+                        File overrideExtensionLocationPath = new File(baseOverrideLocation,
+                                overrideExtensionSubfolder);
 
-                    loadPropertiesFromLocation(overrideExtensionLocationPath, OVERRIDE_EXTENSIONS_LOCATION);
+                        loader.load(overrideExtensionLocationPath, OVERRIDE_EXTENSIONS_LOCATION);
+                    }
                 }
+
+                loader.collect(managedProperties, propertiesFactory);
+                if (snapshotCache != null) {
+                    snapshotCache.saveIfStale(loader.getParsedFiles());
+                }
+            } finally {
+                if (loadExecutor != null) {
+                    loadExecutor.shutdown();
+                }
+            }
+        }
+
+        KrauseningSnapshot loadedSnapshot = KrauseningSnapshot.create(managedProperties, loadStatistics, locations,
+                propertiesFactory, lazy);
+        KrauseningSnapshot previousSnapshot = snapshot;
+        snapshot = loadedSnapshot;
+        loadedBundle = bundle;
+        changeNotifier.snapshotPublished(previousSnapshot, loadedSnapshot);
+
+        if (fileWatcher != null) {
+            // locations may have moved since watching started
+            fileWatcher.watch(getWatchedLocations(loadedSnapshot));
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        LOGGER.debug("Loaded Krausening properties (version {}) in {}ms", loadedSnapshot.getVersion(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        if (KrauseningMetrics.isEnabled()) {
+            KrauseningMetrics.propertiesLoaded(loadedSnapshot.getVersion(), elapsedNanos);
+        }
+
+    }
+
+    /**
+     * Returns the shared base and extensions layer for the current locations,
+     * loading it if it may not be reused, if no instance has loaded it yet, or
+     * if any of its files has changed since. A newly loaded layer replaces the
+     * previous one for every instance loaded afterwards, including instances
+     * reloading.
+     */
+    private SharedBaseLayer getSharedBaseLayer(ExecutorService loadExecutor, int parallelism,
+            KrauseningSnapshotCache snapshotCache, boolean reuse) {
+        List<File> configuredLocations = new ArrayList<>(2);
+        configuredLocations.add(new File(baseLocation));
+        if (StringUtils.isNotBlank(extensionsLocation)) {
+            configuredLocations.add(new File(extensionsLocation));
+        }
+        StringBuilder layerKey = new StringBuilder();
+        for (File configuredLocation : configuredLocations) {
+            layerKey.append(configuredLocation.getAbsolutePath()).append(File.pathSeparatorChar);
+        }
+
+        AtomicReference<SharedBaseLayer> sharedLayerReference = sharedBaseLayers
+                .computeIfAbsent(layerKey.toString(), key -> new AtomicReference<>());
+        SharedBaseLayer sharedLayer = sharedLayerReference.get();
+        if (reuse && (sharedLayer != null) && sharedLayer.isCurrent()) {
+            LOGGER.debug("Reusing shared base and extensions layer {}", layerKey);
+            return sharedLayer;
+        }
+        // loading under the lock makes instances created together parse the
+        // shared locations once, rather than once each
+        synchronized (sharedLayerReference) {
+            sharedLayer = sharedLayerReference.get();
+            if (reuse && (sharedLayer != null) && sharedLayer.isCurrent()) {
+                LOGGER.debug("Reusing shared base and extensions layer {}", layerKey);
+                return sharedLayer;
+            }
+            List<LocationLoadStatistics> loadStatistics = new ArrayList<>();
+            Map<String, File> locations = new LinkedHashMap<>();
+            PropertiesLocationLoader loader = new PropertiesLocationLoader(false, loadStatistics, locations,
+                    loadExecutor, parallelism, snapshotCache);
+            loader.load(configuredLocations.get(0), BASE_LOCATION);
+            if (configuredLocations.size() > 1) {
+                loader.load(configuredLocations.get(1), EXTENSIONS_LOCATION);
             }
+            sharedLayer = new SharedBaseLayer(loader.parsedFiles, loadStatistics, locations, configuredLocations);
+            sharedLayerReference.set(sharedLayer);
+            return sharedLayer;
         }
+    }
 
-        long stop = System.currentTimeMillis();
-        LOGGER.debug("Loaded Krausening properties in {}ms", (stop - start));
+    /**
+     * Returns the coordinator that collapses reload requests from the many
+     * consumers of this instance into as few loads as possible.
+     * 
+     * @return reload coordinator
+     */
+    public ReloadCoordinator getReloadCoordinator() {
+        return reloadCoordinator;
+    }
 
+    long getLoadsStarted() {
+        return loadsStarted;
+    }
+
+    /**
+     * Returns whether the currently loaded properties reflect the given files
+     * exactly as they are on disk, without reading them.
+     * 
+     * @param propertiesFileNames
+     *            the files to check
+     * @return true if none of the files were changed, added, or removed
+     */
+    boolean isCurrent(Collection<String> propertiesFileNames) {
+        KrauseningBundle bundle = loadedBundle;
+        if (bundle != null) {
+            return bundle.isUnchangedOnDisk();
+        }
+        KrauseningSnapshot currentSnapshot = snapshot;
+        for (String propertiesFileName : propertiesFileNames) {
+            if (!currentSnapshot.isCurrent(propertiesFileName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Refreshes the current snapshot with the given changed files, re-reading
+     * only physical files that changed and sharing everything else with the
+     * current snapshot. Unlike {@link #loadProperties()}, the configured
+     * locations and encryption settings are not re-read.
+     * 
+     * @param changedFiles
+     *            physical .properties files that were created, modified, or
+     *            deleted
+     * @param rescanLocations
+     *            whether every file in every location should also be checked
+     *            for changes
+     */
+    synchronized void reloadChangedFiles(Set<File> changedFiles, boolean rescanLocations) {
+        KrauseningBundle bundle = loadedBundle;
+        if (bundle != null) {
+            // a bundle is replaced as a whole, and is loaded again as a whole
+            if (!bundle.isUnchangedOnDisk()) {
+                loadProperties(true);
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        KrauseningSnapshot currentSnapshot = snapshot;
+        KrauseningSnapshot refreshedSnapshot = currentSnapshot.refresh(changedFiles, rescanLocations);
+        if (refreshedSnapshot != currentSnapshot) {
+            snapshot = refreshedSnapshot;
+            changeNotifier.snapshotPublished(currentSnapshot, refreshedSnapshot);
+            long elapsedNanos = System.nanoTime() - start;
+            LOGGER.debug("Reloaded {} changed file(s) into Krausening properties (version {}) in {}us",
+                    changedFiles.size(), refreshedSnapshot.getVersion(), TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+            if (KrauseningMetrics.isEnabled()) {
+                KrauseningMetrics.propertiesRefreshed(changedFiles.size(), elapsedNanos);
+            }
+        }
+    }
+
+    /**
+     * Starts watching the base, extensions, and override extensions locations
+     * for changes. Once the locations have been quiet for the period set by
+     * {@link #WATCH_DEBOUNCE_MILLIS}, only the files that changed are re-read
+     * and merged into a new set of properties.
+     * Calling this method while already watching has no effect.
+     */
+    public synchronized void startWatchingForChanges() {
+        if (fileWatcher == null) {
+            ensureLoaded();
+            try {
+                fileWatcher = new KrauseningFileWatcher(this, getWatchDebounceMillis());
+            } catch (IOException e) {
+                throw new KrauseningException("Could not watch Krausening locations for changes", e);
+            }
+            fileWatcher.watch(getWatchedLocations(snapshot));
+            fileWatcher.start();
+        }
+    }
+
+    /**
+     * @return true if this instance is watching for changes
+     */
+    boolean isWatchingForChanges() {
+        return fileWatcher != null;
+    }
+
+    /**
+     * Stops watching for changes started by {@link #startWatchingForChanges()}.
+     */
+    public synchronized void stopWatchingForChanges() {
+        if (fileWatcher != null) {
+            fileWatcher.close();
+            fileWatcher = null;
+        }
+    }
+
+    private long getWatchDebounceMillis() {
+        String debounceMillis = System.getProperty(WATCH_DEBOUNCE_MILLIS);
+        if (StringUtils.isBlank(debounceMillis)) {
+            return DEFAULT_WATCH_DEBOUNCE_MILLIS;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(debounceMillis.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid {} '{}', defaulting to {}", WATCH_DEBOUNCE_MILLIS, debounceMillis,
+                    DEFAULT_WATCH_DEBOUNCE_MILLIS);
+            return DEFAULT_WATCH_DEBOUNCE_MILLIS;
+        }
     }
 
     protected void setEncryptionFoundation() {
         String masterPassword = System.getProperty(KRAUSENING_PASSWORD);
         if (StringUtils.isBlank(masterPassword)) {
             LOGGER.warn("No {} set, Krausening will not support encrypted property values!", KRAUSENING_PASSWORD);
+            hasMasterPassword = false;
+            encryptor = null;
+            encryptorPassword = null;
 
         } else {
             LOGGER.info("{} configured, Krausening will support encrypted property values.", KRAUSENING_PASSWORD);
             hasMasterPassword = true;
+
+            int poolSize = getEncryptorPoolSize();
+            if (encryptor == null || !masterPassword.equals(encryptorPassword) || poolSize != encryptorPoolSize) {
+                encryptor = createEncryptor(masterPassword, poolSize);
+                encryptorPassword = masterPassword;
+                encryptorPoolSize = poolSize;
+            }
+        }
+
+        // a fresh cache per load ensures decrypted values never outlive the
+        // snapshot they were read from
+        String cacheDecryptedValues = System.getProperty(CACHE_DECRYPTED_VALUES);
+        if (StringUtils.isBlank(cacheDecryptedValues) || Boolean.parseBoolean(cacheDecryptedValues)) {
+            decryptedValueCache = new ConcurrentHashMap<>();
+        } else {
+            LOGGER.debug("{} is false, encrypted values will be decrypted on every read", CACHE_DECRYPTED_VALUES);
+            decryptedValueCache = null;
         }
     }
 
@@ -227,66 +667,400 @@ public final class Krausening {
     }
 
     /**
-     * Loads all .properties files from the passed location.
-     * 
-     * @param location
-     *            the location containing properties files
-     * @param locationType
-     *            the type of properties being loaded (i.e. base, extensions,
-     *            override)
-     */
-    private void loadPropertiesFromLocation(File location, String locationType) {
-        if (!location.exists()) {
-            logFileDoesNotExist(location, locationType);
-        } else {
-            File[] files = location.listFiles((FilenameFilter) new SuffixFileFilter(".properties"));
+     * Loads the .properties files of each location in turn, layering each
+     * location on top of the ones loaded before it. Within a location, files
+     * may be read concurrently, but they are always merged in the order the
+     * locations are loaded, so precedence is unaffected by parallelism. When
+     * loading lazily, files are only indexed by location and are read on first
+     * access.
+     */
+    private final class PropertiesLocationLoader {
+
+        private final boolean lazy;
+        private final List<LocationLoadStatistics> loadStatistics;
+        private final Map<String, File> locations;
+        private final ExecutorService loadExecutor;
+        private final int parallelism;
 
-            if ((files == null) || (files.length == 0)) {
-                LOGGER.warn("No files were found within: {}", location.getAbsolutePath());
+        /** Cache to restore unchanged files from, or null to parse every file. */
+        private final KrauseningSnapshotCache snapshotCache;
+
+        /** Source files of each file name, in precedence order. */
+        private final Map<String, List<File>> sourceFiles = new HashMap<>();
+
+        /** Parsed source files of each file name, in precedence order. */
+        private final Map<String, List<ParsedPropertiesFile>> parsedFiles = new HashMap<>();
+
+        /** Shared layer below the locations loaded by this loader, or null if none. */
+        private SharedBaseLayer sharedLayer;
+
+        private PropertiesLocationLoader(boolean lazy, List<LocationLoadStatistics> loadStatistics,
+                Map<String, File> locations, ExecutorService loadExecutor, int parallelism,
+                KrauseningSnapshotCache snapshotCache) {
+            this.lazy = lazy;
+            this.loadStatistics = loadStatistics;
+            this.locations = locations;
+            this.loadExecutor = loadExecutor;
+            this.parallelism = (loadExecutor != null) ? parallelism : 1;
+            this.snapshotCache = snapshotCache;
+        }
 
+        /**
+         * Loads all .properties files from the passed location.
+         * 
+         * @param location
+         *            the location containing properties files
+         * @param locationType
+         *            the type of properties being loaded (i.e. base, extensions,
+         *            override)
+         */
+        private void load(File location, String locationType) {
+            if (!location.exists()) {
+                logFileDoesNotExist(location, locationType);
             } else {
-                String fileName = null;
-                Properties fileProperties = null;
-                for (File file : files) {
-                    fileName = file.getName();
-                    fileProperties = (managedProperties.containsKey(fileName)) ? managedProperties.get(fileName)
-                            : createEmptyProperties();
-                    try (Reader fileReader = new FileReader(file)) {
-                        fileProperties.load(fileReader);
-                        managedProperties.put(fileName, fileProperties);
-
-                    } catch (IOException e) {
-                        LOGGER.error("Could not read the file: " + file.getAbsolutePath(), e);
+                locations.put(locationType, location);
+                File[] files = location.listFiles((FilenameFilter) new SuffixFileFilter(".properties"));
+
+                if ((files == null) || (files.length == 0)) {
+                    LOGGER.warn("No files were found within: {}", location.getAbsolutePath());
+
+                } else {
+                    long start = System.nanoTime();
+                    long cumulativeParseNanos = 0L;
+                    long bytesRead = 0L;
+                    long keyCount = 0L;
+                    if (lazy) {
+                        for (File file : files) {
+                            sourceFiles.computeIfAbsent(file.getName(), fileName -> new ArrayList<>()).add(file);
+                        }
+                    } else {
+                        List<ParsedPropertiesFile> parsedLocation = (loadExecutor != null) ? parseConcurrently(files)
+                                : parseSequentially(files);
+                        for (ParsedPropertiesFile parsedFile : parsedLocation) {
+                            cumulativeParseNanos += parsedFile.getParseNanos();
+                            bytesRead += parsedFile.getLength();
+                            keyCount += parsedFile.getKeyCount();
+                            parsedFiles.computeIfAbsent(parsedFile.getFile().getName(), fileName -> new ArrayList<>())
+                                    .add(parsedFile);
+                        }
+                    }
+                    long elapsedNanos = System.nanoTime() - start;
+
+                    LocationLoadStatistics statistics = new LocationLoadStatistics(locationType, location,
+                            files.length, parallelism, elapsedNanos, lazy ? elapsedNanos : cumulativeParseNanos,
+                            bytesRead, keyCount);
+                    loadStatistics.add(statistics);
+                    LOGGER.debug("{} {}", lazy ? "Indexed" : "Loaded", statistics);
+                    if (KrauseningMetrics.isEnabled()) {
+                        KrauseningMetrics.locationLoaded(statistics);
+                    }
+                }
+            }
+        }
 
+        /**
+         * Restores the files of one layer of a bundle, which were parsed when
+         * the bundle was compiled. The layer is given a location within the
+         * bundle (i.e., bundle/base), so that layered views and provenance can
+         * tell the layers apart.
+         * 
+         * @param bundle
+         *            the bundle
+         * @param layer
+         *            a layer of the bundle
+         * @param locationType
+         *            the type of properties being loaded (i.e. base, extensions,
+         *            override)
+         */
+        private void restore(KrauseningBundle bundle, String layer, String locationType) {
+            long start = System.nanoTime();
+            File location = new File(bundle.getFile(), layer);
+            locations.put(locationType, location);
+            Set<String> fileNames = bundle.getFileNames(layer);
+            long keyCount = 0L;
+            for (String fileName : fileNames) {
+                Map<String, String> entries = bundle.getEntries(layer, fileName);
+                keyCount += entries.size();
+                parsedFiles.computeIfAbsent(fileName, name -> new ArrayList<>())
+                        .add(ParsedPropertiesFile.restore(new File(location, fileName), entries, 0L, 0L, 0L, 0));
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            LocationLoadStatistics statistics = new LocationLoadStatistics(locationType, location, fileNames.size(),
+                    1, elapsedNanos, elapsedNanos, 0L, keyCount);
+            loadStatistics.add(statistics);
+            LOGGER.debug("Loaded {}", statistics);
+            if (KrauseningMetrics.isEnabled()) {
+                KrauseningMetrics.locationLoaded(statistics);
+            }
+        }
+
+        /**
+         * Layers the locations loaded next on top of a shared layer, which must
+         * be done before any location is loaded.
+         * 
+         * @param sharedLayer
+         *            the shared base and extensions layer
+         */
+        private void layerOn(SharedBaseLayer sharedLayer) {
+            this.sharedLayer = sharedLayer;
+            loadStatistics.addAll(sharedLayer.getLoadStatistics());
+            locations.putAll(sharedLayer.getLocations());
+        }
+
+        /**
+         * Merges everything loaded so far into managed files. Files of the
+         * shared layer are layered over its merged entries rather than merged
+         * again, so they only hold the entries loaded by this loader.
+         * 
+         * @param managedProperties
+         *            receives the managed files, keyed by file name
+         * @param propertiesFactory
+         *            creates the (possibly decrypting) map that each file is
+         *            merged into
+         */
+        private void collect(Map<String, ManagedPropertiesFile> managedProperties,
+                PropertiesFactory propertiesFactory) {
+            for (Map.Entry<String, List<File>> entry : sourceFiles.entrySet()) {
+                managedProperties.put(entry.getKey(),
+                        ManagedPropertiesFile.deferred(entry.getKey(), entry.getValue(), propertiesFactory));
+            }
+            if (sharedLayer != null) {
+                for (String fileName : sharedLayer.getFileNames()) {
+                    if (!parsedFiles.containsKey(fileName)) {
+                        putIfLoaded(managedProperties, fileName,
+                                sharedLayer.layer(fileName, Collections.emptyList(), propertiesFactory));
                     }
                 }
             }
+            for (Map.Entry<String, List<ParsedPropertiesFile>> entry : parsedFiles.entrySet()) {
+                putIfLoaded(managedProperties, entry.getKey(), (sharedLayer != null)
+                        ? sharedLayer.layer(entry.getKey(), entry.getValue(), propertiesFactory)
+                        : ManagedPropertiesFile.loaded(entry.getKey(), entry.getValue(), propertiesFactory));
+            }
+        }
+
+        private void putIfLoaded(Map<String, ManagedPropertiesFile> managedProperties, String fileName,
+                ManagedPropertiesFile managedFile) {
+            if (managedFile != null) {
+                managedProperties.put(fileName, managedFile);
+            }
+        }
+
+        /**
+         * @return every physical file read so far, including those of the
+         *         shared layer, in no particular order
+         */
+        private List<ParsedPropertiesFile> getParsedFiles() {
+            List<ParsedPropertiesFile> allParsedFiles = new ArrayList<>();
+            if (sharedLayer != null) {
+                for (String fileName : sharedLayer.getFileNames()) {
+                    allParsedFiles.addAll(sharedLayer.getParsedFiles(fileName));
+                }
+            }
+            for (List<ParsedPropertiesFile> parsedSourceFiles : parsedFiles.values()) {
+                allParsedFiles.addAll(parsedSourceFiles);
+            }
+            return allParsedFiles;
+        }
+
+        private ParsedPropertiesFile read(File file) {
+            return (snapshotCache != null) ? snapshotCache.read(file) : ParsedPropertiesFile.read(file);
+        }
+
+        private List<ParsedPropertiesFile> parseSequentially(File[] files) {
+            List<ParsedPropertiesFile> parsedLocation = new ArrayList<>(files.length);
+            for (File file : files) {
+                parsedLocation.add(read(file));
+            }
+            return parsedLocation;
+        }
+
+        private List<ParsedPropertiesFile> parseConcurrently(File[] files) {
+            List<Future<ParsedPropertiesFile>> pendingFiles = new ArrayList<>(files.length);
+            for (final File file : files) {
+                pendingFiles.add(loadExecutor.submit(() -> read(file)));
+            }
+
+            List<ParsedPropertiesFile> parsedLocation = new ArrayList<>(files.length);
+            try {
+                for (Future<ParsedPropertiesFile> pendingFile : pendingFiles) {
+                    parsedLocation.add(pendingFile.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KrauseningException("Interrupted while loading Krausening properties", e);
+            } catch (ExecutionException e) {
+                throw new KrauseningException("Could not load Krausening properties", e.getCause());
+            } finally {
+                for (Future<ParsedPropertiesFile> pendingFile : pendingFiles) {
+                    pendingFile.cancel(true);
+                }
+            }
+            return parsedLocation;
         }
     }
 
     /**
-     * Creates an empty Properties file, either standard or encrypted, based on
-     * whether or not the master password is set.
+     * Loads the base, extensions, and (if this instance has an override
+     * extensions subfolder) override extensions layers of a bundle. The bundle
+     * and its merged base and extensions layers are shared with every other
+     * instance loading it, so this instance only decodes and holds its own
+     * override layer. Unless the shared bundle may be reused, it is opened
+     * again.
+     */
+    private KrauseningBundle loadBundle(File bundleFile, Map<String, ManagedPropertiesFile> managedProperties,
+            List<LocationLoadStatistics> loadStatistics, Map<String, File> locations,
+            PropertiesFactory propertiesFactory, boolean reuseSharedBundle) {
+        KrauseningBundle bundle;
+        try {
+            bundle = KrauseningBundle.openShared(bundleFile, reuseSharedBundle);
+        } catch (IOException e) {
+            throw new KrauseningException("Could not read Krausening bundle " + bundleFile.getAbsolutePath(), e);
+        }
+        if (StringUtils.isNotBlank(extensionsLocation)
+                || StringUtils.isNotBlank(System.getProperty(OVERRIDE_EXTENSIONS_LOCATION))) {
+            LOGGER.info("Loading all locations from the Krausening bundle {}, ignoring {} and {}",
+                    bundleFile.getAbsolutePath(), EXTENSIONS_LOCATION, OVERRIDE_EXTENSIONS_LOCATION);
+        }
+
+        PropertiesLocationLoader loader = new PropertiesLocationLoader(false, loadStatistics, locations, null, 1,
+                null);
+        loader.layerOn(bundle.getSharedBaseLayer(this::loadBundleBaseLayer));
+        if (StringUtils.isNotBlank(overrideExtensionSubfolder)) {
+            String overrideLayer = KrauseningBundle.overrideLayer(overrideExtensionSubfolder);
+            if (bundle.getLayers().contains(overrideLayer)) {
+                loader.restore(bundle, overrideLayer, OVERRIDE_EXTENSIONS_LOCATION);
+            } else {
+                LOGGER.warn("Krausening bundle {} has no override subfolder {}", bundleFile.getAbsolutePath(),
+                        overrideExtensionSubfolder);
+            }
+        }
+        loader.collect(managedProperties, propertiesFactory);
+        return bundle;
+    }
+
+    private SharedBaseLayer loadBundleBaseLayer(KrauseningBundle bundle) {
+        List<LocationLoadStatistics> loadStatistics = new ArrayList<>();
+        Map<String, File> locations = new LinkedHashMap<>();
+        PropertiesLocationLoader loader = new PropertiesLocationLoader(false, loadStatistics, locations, null, 1,
+                null);
+        List<String> layers = bundle.getLayers();
+        if (layers.contains(KrauseningBundle.BASE_LAYER)) {
+            loader.restore(bundle, KrauseningBundle.BASE_LAYER, BASE_LOCATION);
+        }
+        if (layers.contains(KrauseningBundle.EXTENSIONS_LAYER)) {
+            loader.restore(bundle, KrauseningBundle.EXTENSIONS_LAYER, EXTENSIONS_LOCATION);
+        }
+        // the bundle itself tells whether it changed, so there are no locations to list
+        return new SharedBaseLayer(loader.parsedFiles, loadStatistics, locations, Collections.emptyList());
+    }
+
+    /**
+     * @return the directories to watch for changes to the given snapshot
+     */
+    private Collection<File> getWatchedLocations(KrauseningSnapshot watchedSnapshot) {
+        KrauseningBundle bundle = loadedBundle;
+        if (bundle != null) {
+            return Collections.singleton(bundle.getFile().getAbsoluteFile().getParentFile());
+        }
+        return watchedSnapshot.getLocations();
+    }
+
+    private KrauseningSnapshotCache openSnapshotCache() {
+        String cacheLocation = System.getProperty(SNAPSHOT_CACHE);
+        if (StringUtils.isBlank(cacheLocation)) {
+            return null;
+        }
+        String cachePath = cacheLocation.trim();
+        if (StringUtils.isNotBlank(overrideExtensionSubfolder)) {
+            // instances with different override subfolders load different files
+            cachePath += "-" + overrideExtensionSubfolder.replaceAll("[^A-Za-z0-9._-]", "_");
+        }
+        return KrauseningSnapshotCache.open(new File(cachePath));
+    }
+
+    private ExecutorService createLoadExecutor(int parallelism) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread result = new Thread(r, "krausening-loader-" + threadCount.incrementAndGet());
+                result.setDaemon(true);
+                return result;
+            }
+        });
+    }
+
+    private int getLoadParallelism() {
+        String parallelism = System.getProperty(LOAD_PARALLELISM);
+        if (StringUtils.isBlank(parallelism)) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(parallelism.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid {} '{}', loading files sequentially", LOAD_PARALLELISM, parallelism);
+            return 1;
+        }
+    }
+
+    /**
+     * Creates a factory for the containers that managed files are merged into,
+     * either standard or decrypting based on whether or not the master
+     * password is set. The factory captures the current encryption settings,
+     * so files that are read lazily are decrypted the same way as the rest of
+     * their snapshot.
      * 
-     * @return An empty properties instance
+     * @return factory of properties containers
      */
-    private Properties createEmptyProperties() {
-        Properties properties;
+    private PropertiesFactory createPropertiesFactory() {
         if (hasMasterPassword) {
-            // TODO: could externalize this so the type is configurable:
-            StandardPBEStringEncryptor encryptor = new StandardPBEStringEncryptor();
-            encryptor.setPassword(System.getProperty(KRAUSENING_PASSWORD));
-            // Use PBEWithHMACSHA512AndAES_256 cipher algorithm for more secure encryption
-            encryptor.setAlgorithm("PBEWithHMACSHA512AndAES_256");
-            encryptor.setIvGenerator(new RandomIvGenerator());
-
-            properties = new EncryptableProperties(encryptor);
+            return new PropertiesFactory(new PropertyValueDecryptor(encryptor, decryptedValueCache));
 
         } else {
-            properties = new Properties();
+            return PropertiesFactory.PLAIN;
         }
+    }
 
-        return properties;
+    /**
+     * Creates the encryptor shared by all encrypted files of this instance.
+     * Decryption is spread across a pool of encryptors so that concurrent
+     * reads are not serialized behind a single one.
+     * 
+     * @param masterPassword
+     *            the master encryption password
+     * @param poolSize
+     *            the number of pooled encryptors
+     * @return configured encryptor
+     */
+    private PooledPBEStringEncryptor createEncryptor(String masterPassword, int poolSize) {
+        // TODO: could externalize this so the type is configurable:
+        PooledPBEStringEncryptor pooledEncryptor = new PooledPBEStringEncryptor();
+        pooledEncryptor.setPoolSize(poolSize);
+        pooledEncryptor.setPassword(masterPassword);
+        // Use PBEWithHMACSHA512AndAES_256 cipher algorithm for more secure encryption
+        pooledEncryptor.setAlgorithm(ENCRYPTION_ALGORITHM);
+        pooledEncryptor.setIvGenerator(new RandomIvGenerator());
+        LOGGER.debug("Created encryptor pool of size {}", poolSize);
+        return pooledEncryptor;
+    }
+
+    private int getEncryptorPoolSize() {
+        int defaultPoolSize = Runtime.getRuntime().availableProcessors();
+        String poolSize = System.getProperty(ENCRYPTOR_POOL_SIZE);
+        if (StringUtils.isBlank(poolSize)) {
+            return defaultPoolSize;
+        }
+        try {
+            int configuredPoolSize = Integer.parseInt(poolSize.trim());
+            if (configuredPoolSize > 0) {
+                return configuredPoolSize;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the warning below
+        }
+        LOGGER.warn("Invalid {} '{}', defaulting to {}", ENCRYPTOR_POOL_SIZE, poolSize, defaultPoolSize);
+        return defaultPoolSize;
     }
 
     /**
@@ -297,8 +1071,161 @@ public final class Krausening {
      * @return The file or null if that file name is not know
      */
     public Properties getProperties(String propertiesFileName) {
-        return managedProperties.get(propertiesFileName);
+        return snapshot.getProperties(propertiesFileName);
+
+    }
+
+    /**
+     * Returns an immutable, compact view of the properties file loaded by
+     * Krausening for the given file name. Reads never lock, and, unlike the
+     * {@link Properties} returned by {@link #getProperties(String)}, the
+     * returned map cannot be changed by callers. Encrypted values are
+     * decrypted as they are read.
+     * 
+     * @param propertiesFileName
+     *            The file name to retrieve
+     * @return The property map or null if that file name is not known
+     */
+    public FrozenPropertyMap getPropertyMap(String propertiesFileName) {
+        return snapshot.getPropertyMap(propertiesFileName);
+    }
+
+    /**
+     * Returns a view of the properties file loaded by Krausening for the given
+     * file name that retains the contents of each location (i.e., base,
+     * extensions, override) it was merged from. This allows the origin of any
+     * value to be determined without re-reading files.
+     * 
+     * @param propertiesFileName
+     *            The file name to retrieve
+     * @return The layered view or null if that file name is not known
+     */
+    public LayeredPropertyView getLayeredView(String propertiesFileName) {
+        return snapshot.getLayeredView(propertiesFileName);
+    }
+
+    /**
+     * Returns where the current value of a property came from.
+     * 
+     * @param propertiesFileName
+     *            The file name containing the property
+     * @param key
+     *            The property name
+     * @return The provenance or null if the file or property is not known
+     */
+    public PropertyProvenance getPropertyProvenance(String propertiesFileName, String key) {
+        LayeredPropertyView layeredView = getLayeredView(propertiesFileName);
+        return (layeredView != null) ? layeredView.getProvenance(key) : null;
+    }
+
+    /**
+     * Subscribes to changes to any property of the given file. After each
+     * reload (or refresh of changed files) that adds, removes, or changes
+     * properties of the file, the subscriber is told which ones, so it only
+     * needs to rebuild what depends on them. Notifications are delivered on
+     * the executor set by {@link #setChangeNotificationExecutor(Executor)}.
+     * 
+     * @param propertiesFileName
+     *            the file to watch (e.g., example.properties)
+     * @param subscriber
+     *            notified of changes
+     * @return the subscription, which can be cancelled
+     */
+    public PropertyChangeSubscription subscribe(String propertiesFileName, PropertyChangeSubscriber subscriber) {
+        return subscribe(propertiesFileName, key -> true, subscriber);
+    }
+
+    /**
+     * Subscribes to changes to specific properties of the given file. See
+     * {@link #subscribe(String, PropertyChangeSubscriber)}.
+     * 
+     * @param propertiesFileName
+     *            the file to watch
+     * @param keys
+     *            names of the properties to watch
+     * @param subscriber
+     *            notified of changes to those properties
+     * @return the subscription, which can be cancelled
+     */
+    public PropertyChangeSubscription subscribe(String propertiesFileName, Collection<String> keys,
+            PropertyChangeSubscriber subscriber) {
+        Set<String> subscribedKeys = new HashSet<>(keys);
+        return subscribe(propertiesFileName, subscribedKeys::contains, subscriber);
+    }
+
+    /**
+     * Subscribes to changes to the properties of the given file whose names
+     * start with the given prefix (e.g., {@code datasource.}). See
+     * {@link #subscribe(String, PropertyChangeSubscriber)}.
+     * 
+     * @param propertiesFileName
+     *            the file to watch
+     * @param keyPrefix
+     *            prefix of the names of the properties to watch
+     * @param subscriber
+     *            notified of changes to those properties
+     * @return the subscription, which can be cancelled
+     */
+    public PropertyChangeSubscription subscribeToPrefix(String propertiesFileName, String keyPrefix,
+            PropertyChangeSubscriber subscriber) {
+        return subscribe(propertiesFileName, key -> key.startsWith(keyPrefix), subscriber);
+    }
+
+    private PropertyChangeSubscription subscribe(String propertiesFileName, Predicate<String> keyFilter,
+            PropertyChangeSubscriber subscriber) {
+        if (propertiesFileName == null || subscriber == null) {
+            throw new IllegalArgumentException("A properties file name and subscriber are required");
+        }
+        PropertyChangeSubscription subscription = changeNotifier.subscribe(propertiesFileName, keyFilter,
+                subscriber);
+        // a lazily loaded file must be read now, so later changes are compared
+        // against what it contained when the subscription was made
+        snapshot.getPropertyMap(propertiesFileName);
+        return subscription;
+    }
 
+    /**
+     * Sets the executor that property change notifications are delivered on.
+     * By default, notifications are delivered on a single daemon thread, in
+     * the order the changes were loaded; an executor with more threads may
+     * deliver them in any order (see {@link PropertyChanges#getVersion()}).
+     * 
+     * @param executor
+     *            the executor, or null to restore the default
+     */
+    public void setChangeNotificationExecutor(Executor executor) {
+        changeNotifier.setExecutor(executor);
+    }
+
+    /**
+     * Returns the directories (i.e., base, extensions, override) that the
+     * currently published properties were loaded from.
+     * 
+     * @return unmodifiable list of directories, lowest precedence first
+     */
+    public List<File> getLocations() {
+        return Collections.unmodifiableList(new ArrayList<>(snapshot.getLocations()));
+    }
+
+    /**
+     * Returns timing information for each location read by the most recent
+     * load.
+     * 
+     * @return unmodifiable list of statistics, in load order
+     */
+    public List<LocationLoadStatistics> getLastLoadStatistics() {
+        return snapshot.getLoadStatistics();
+    }
+
+    /**
+     * Returns the version of the currently published set of properties. The
+     * version increases every time properties are (re)loaded, so it can be
+     * used to detect that a refresh has occurred.
+     * 
+     * @return current snapshot version, or 0 if nothing has been loaded yet
+     */
+    public long getSnapshotVersion() {
+        return snapshot.getVersion();
     }
 
     /**
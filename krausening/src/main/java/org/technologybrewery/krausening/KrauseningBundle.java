@@ -0,0 +1,473 @@
+package org.technologybrewery.krausening;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The .properties files of a base location, an extensions location, and every
+ * subfolder of an override extensions location, compiled into a single
+ * binary file at build time (e.g., by the krausening-maven-plugin's bundle
+ * goal). Every file is parsed, and so validated, when the bundle is compiled.
+ * <p>
+ * Setting {@link Krausening#BASE_LOCATION} to a bundle rather than a directory
+ * loads every location from the bundle instead of listing directories and
+ * parsing files. The bundle is memory-mapped once and shared by every
+ * instance that loads it, as long as its modification time and size are
+ * unchanged, and each layer is only decoded once an instance loads it, so the
+ * override layers of other subfolders are never decoded. The bundle is
+ * organized by layer (base, extensions, and one layer per override
+ * subfolder) and, within each layer, by file name, so the layered merge,
+ * {@link LayeredPropertyView}s, and {@link PropertyProvenance} work exactly
+ * as they do for directories. Values are stored as written, so encrypted
+ * values stay encrypted.
+ */
+public final class KrauseningBundle {
+
+    /** Layer holding the files of the base location. */
+    public static final String BASE_LAYER = "base";
+
+    /** Layer holding the files of the extensions location. */
+    public static final String EXTENSIONS_LAYER = "extensions";
+
+    private static final String OVERRIDE_LAYER_PREFIX = "override/";
+
+    /** "KRBN". */
+    private static final int MAGIC = 0x4B52424E;
+
+    private static final int FORMAT_VERSION = 1;
+
+    /** Bundles opened by {@link #openShared(File, boolean)}, keyed by absolute path. */
+    private static final ConcurrentMap<String, AtomicReference<KrauseningBundle>> sharedBundles =
+            new ConcurrentHashMap<>();
+
+    /** File the bundle was opened from, or null if it was compiled. */
+    private final File file;
+
+    private final long lastModified;
+
+    private final long length;
+
+    /** Each layer, in precedence order. */
+    private final Map<String, Layer> layers;
+
+    /** Base and extensions layers shared by the instances loading this bundle, or null until first loaded. */
+    private volatile SharedBaseLayer sharedBaseLayer;
+
+    private KrauseningBundle(File file, long lastModified, long length, Map<String, Layer> layers) {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.layers = layers;
+    }
+
+    /**
+     * Parses every .properties file of the given locations into a bundle.
+     *
+     * @param baseLocation
+     *            the base location
+     * @param extensionsLocation
+     *            the extensions location, or null if there is none
+     * @param overrideExtensionsLocation
+     *            the override extensions location, each subfolder of which
+     *            becomes a layer, or null if there is none
+     * @return the bundle
+     * @throws KrauseningException
+     *             if the base location does not exist or any file cannot be
+     *             read or is malformed
+     */
+    public static KrauseningBundle compile(File baseLocation, File extensionsLocation,
+            File overrideExtensionsLocation) {
+        if (baseLocation == null || !baseLocation.isDirectory()) {
+            throw new KrauseningException("Base location " + baseLocation + " is not a directory");
+        }
+        Map<String, Layer> layers = new LinkedHashMap<>();
+        layers.put(BASE_LAYER, new Layer(compileLocation(baseLocation)));
+        if (extensionsLocation != null && extensionsLocation.isDirectory()) {
+            layers.put(EXTENSIONS_LAYER, new Layer(compileLocation(extensionsLocation)));
+        }
+        if (overrideExtensionsLocation != null && overrideExtensionsLocation.isDirectory()) {
+            File[] subfolders = overrideExtensionsLocation.listFiles((FileFilter) File::isDirectory);
+            if (subfolders != null) {
+                Arrays.sort(subfolders);
+                for (File subfolder : subfolders) {
+                    layers.put(overrideLayer(subfolder.getName()), new Layer(compileLocation(subfolder)));
+                }
+            }
+        }
+        return new KrauseningBundle(null, 0L, 0L, layers);
+    }
+
+    private static Map<String, Map<String, String>> compileLocation(File location) {
+        Map<String, Map<String, String>> files = new TreeMap<>();
+        File[] propertiesFiles = location.listFiles((FilenameFilter) new SuffixFileFilter(".properties"));
+        if (propertiesFiles == null) {
+            return files;
+        }
+        for (File propertiesFile : propertiesFiles) {
+            Map<String, String> entries;
+            try {
+                entries = ParsedPropertiesFile.read(propertiesFile).getEntries();
+            } catch (IllegalArgumentException e) {
+                throw new KrauseningException("Malformed properties file " + propertiesFile.getAbsolutePath() + ": "
+                        + e.getMessage(), e);
+            }
+            if (entries == null) {
+                throw new KrauseningException("Could not read " + propertiesFile.getAbsolutePath());
+            }
+            // sorted, so the same files always produce the same bundle
+            files.put(propertiesFile.getName(), Collections.unmodifiableMap(new TreeMap<>(entries)));
+        }
+        return files;
+    }
+
+    /**
+     * @param file
+     *            a file that may be a bundle
+     * @return true if the file is a regular file that starts like a bundle
+     */
+    public static boolean isBundle(File file) {
+        if (!file.isFile() || file.length() < 8) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Memory-maps a bundle. Each layer is decoded the first time its files are
+     * requested.
+     *
+     * @param bundleFile
+     *            a file written by {@link #write(File)}
+     * @return the bundle
+     * @throws IOException
+     *             if the file cannot be read or is not an intact bundle
+     */
+    public static KrauseningBundle open(File bundleFile) throws IOException {
+        // taken before mapping, so a bundle replaced meanwhile is not mistaken for unchanged
+        long lastModified = bundleFile.lastModified();
+        long length = bundleFile.length();
+        ByteBuffer body = KrauseningSnapshotCache.mapChecked(bundleFile.toPath(), MAGIC, FORMAT_VERSION);
+        try {
+            int layerCount = body.getInt();
+            Map<String, Layer> layers = new LinkedHashMap<>();
+            for (int i = 0; i < layerCount; i++) {
+                String layer = KrauseningSnapshotCache.readString(body);
+                int start = body.position();
+                int fileCount = body.getInt();
+                for (int j = 0; j < fileCount; j++) {
+                    skipString(body);
+                    int entryCount = body.getInt();
+                    for (int k = 0; k < entryCount; k++) {
+                        skipString(body);
+                        skipString(body);
+                    }
+                }
+                ByteBuffer encoded = body.duplicate();
+                encoded.limit(body.position());
+                encoded.position(start);
+                layers.put(layer, new Layer(encoded));
+            }
+            return new KrauseningBundle(bundleFile, lastModified, length, layers);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated bundle " + bundleFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Returns the bundle last opened from a file by any instance, as long as
+     * it may be reused and the file's modification time and size are
+     * unchanged, or opens it again. A bundle opened again replaces the
+     * previous one for every instance opening it afterwards.
+     *
+     * @param bundleFile
+     *            a file written by {@link #write(File)}
+     * @param reuse
+     *            whether a bundle already opened by any instance may be
+     *            returned
+     * @return the shared bundle
+     * @throws IOException
+     *             if the file cannot be read or is not an intact bundle
+     */
+    static KrauseningBundle openShared(File bundleFile, boolean reuse) throws IOException {
+        AtomicReference<KrauseningBundle> bundleReference = sharedBundles
+                .computeIfAbsent(bundleFile.getAbsolutePath(), key -> new AtomicReference<>());
+        KrauseningBundle bundle = bundleReference.get();
+        if (reuse && (bundle != null) && bundle.isUnchangedOnDisk()) {
+            return bundle;
+        }
+        synchronized (bundleReference) {
+            bundle = bundleReference.get();
+            if (!reuse || (bundle == null) || !bundle.isUnchangedOnDisk()) {
+                bundle = open(bundleFile);
+                bundleReference.set(bundle);
+            }
+            return bundle;
+        }
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * Writes this bundle.
+     *
+     * @param bundleFile
+     *            the file to write, which is replaced if it exists
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void write(File bundleFile) throws IOException {
+        File directory = bundleFile.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            Files.createDirectories(directory.toPath());
+        }
+        CRC32C checksum = new CRC32C();
+        try (OutputStream fileOut = Files.newOutputStream(bundleFile.toPath());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            DataOutputStream body = new DataOutputStream(new CheckedOutputStream(out, checksum));
+            body.writeInt(MAGIC);
+            body.writeInt(FORMAT_VERSION);
+            body.writeInt(layers.size());
+            for (Map.Entry<String, Layer> layer : layers.entrySet()) {
+                Map<String, Map<String, String>> files = layer.getValue().getFiles();
+                KrauseningSnapshotCache.writeString(body, layer.getKey());
+                body.writeInt(files.size());
+                for (Map.Entry<String, Map<String, String>> propertiesFile : files.entrySet()) {
+                    KrauseningSnapshotCache.writeString(body, propertiesFile.getKey());
+                    body.writeInt(propertiesFile.getValue().size());
+                    for (Map.Entry<String, String> entry : propertiesFile.getValue().entrySet()) {
+                        KrauseningSnapshotCache.writeString(body, entry.getKey());
+                        KrauseningSnapshotCache.writeString(body, entry.getValue());
+                    }
+                }
+            }
+            body.flush();
+            out.writeInt((int) checksum.getValue());
+        }
+    }
+
+    /**
+     * @param overrideExtensionSubfolder
+     *            an override extensions subfolder (i.e., "war1" or "/war1")
+     * @return the name of the layer holding the files of that subfolder
+     */
+    public static String overrideLayer(String overrideExtensionSubfolder) {
+        return OVERRIDE_LAYER_PREFIX + StringUtils.strip(overrideExtensionSubfolder, "/\\");
+    }
+
+    /**
+     * @return the layers of this bundle, in precedence order (lowest first)
+     */
+    public List<String> getLayers() {
+        return Collections.unmodifiableList(new ArrayList<>(layers.keySet()));
+    }
+
+    /**
+     * @return the override extensions subfolders this bundle has a layer for
+     */
+    public Set<String> getOverrideExtensionSubfolders() {
+        Set<String> subfolders = new TreeSet<>();
+        for (String layer : layers.keySet()) {
+            if (layer.startsWith(OVERRIDE_LAYER_PREFIX)) {
+                subfolders.add(layer.substring(OVERRIDE_LAYER_PREFIX.length()));
+            }
+        }
+        return Collections.unmodifiableSet(subfolders);
+    }
+
+    /**
+     * @param layer
+     *            a layer of this bundle
+     * @return the names of the files of the layer, or an empty set if the
+     *         bundle has no such layer
+     */
+    public Set<String> getFileNames(String layer) {
+        Layer files = layers.get(layer);
+        return (files != null) ? Collections.unmodifiableSet(files.getFiles().keySet()) : Collections.emptySet();
+    }
+
+    /**
+     * @param layer
+     *            a layer of this bundle
+     * @param fileName
+     *            a .properties file name
+     * @return the entries of that file in that layer, as written, or null if
+     *         the layer has no such file
+     */
+    public Map<String, String> getEntries(String layer, String fileName) {
+        Layer files = layers.get(layer);
+        return (files != null) ? files.getFiles().get(fileName) : null;
+    }
+
+    /**
+     * Merges the base, extensions, and (optionally) one override layer of a
+     * file, exactly as {@link Krausening} does when loading this bundle.
+     *
+     * @param fileName
+     *            a .properties file name
+     * @param overrideExtensionSubfolder
+     *            the override extensions subfolder to apply, or null for none
+     * @return the merged entries, or null if no layer has the file
+     */
+    public Map<String, String> getMergedEntries(String fileName, String overrideExtensionSubfolder) {
+        Map<String, String> merged = null;
+        for (String layer : getLoadedLayers(overrideExtensionSubfolder)) {
+            Map<String, String> entries = getEntries(layer, fileName);
+            if (entries != null) {
+                if (merged == null) {
+                    merged = new HashMap<>(entries);
+                } else {
+                    merged.putAll(entries);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @param overrideExtensionSubfolder
+     *            the override extensions subfolder to apply, or null for none
+     * @return the layers loaded for that subfolder, in precedence order
+     */
+    List<String> getLoadedLayers(String overrideExtensionSubfolder) {
+        List<String> loadedLayers = new ArrayList<>(3);
+        if (layers.containsKey(BASE_LAYER)) {
+            loadedLayers.add(BASE_LAYER);
+        }
+        if (layers.containsKey(EXTENSIONS_LAYER)) {
+            loadedLayers.add(EXTENSIONS_LAYER);
+        }
+        if (StringUtils.isNotBlank(overrideExtensionSubfolder)
+                && layers.containsKey(overrideLayer(overrideExtensionSubfolder))) {
+            loadedLayers.add(overrideLayer(overrideExtensionSubfolder));
+        }
+        return loadedLayers;
+    }
+
+    /**
+     * @return the file this bundle was opened from, or null if it was compiled
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return true if the file this bundle was opened from has not been
+     *         modified since
+     */
+    boolean isUnchangedOnDisk() {
+        return file != null && file.lastModified() == lastModified && file.length() == length;
+    }
+
+    /**
+     * Returns the merged base and extensions layers of this bundle, loading
+     * them the first time they are requested. Every instance loading this
+     * bundle layers its override layer over the same shared layer.
+     *
+     * @param loader
+     *            loads the shared layer from a bundle
+     * @return the shared layer
+     */
+    SharedBaseLayer getSharedBaseLayer(Function<KrauseningBundle, SharedBaseLayer> loader) {
+        SharedBaseLayer layer = sharedBaseLayer;
+        if (layer == null) {
+            synchronized (layers) {
+                layer = sharedBaseLayer;
+                if (layer == null) {
+                    layer = loader.apply(this);
+                    sharedBaseLayer = layer;
+                }
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * The files of one layer, decoded from the mapped bundle the first time
+     * they are requested.
+     */
+    private static final class Layer {
+
+        /** The encoded layer, or null once decoded. */
+        private ByteBuffer encoded;
+
+        private volatile Map<String, Map<String, String>> files;
+
+        private Layer(ByteBuffer encoded) {
+            this.encoded = encoded;
+        }
+
+        private Layer(Map<String, Map<String, String>> files) {
+            this.files = files;
+        }
+
+        private Map<String, Map<String, String>> getFiles() {
+            Map<String, Map<String, String>> decoded = files;
+            if (decoded == null) {
+                synchronized (this) {
+                    decoded = files;
+                    if (decoded == null) {
+                        decoded = decode(encoded.duplicate());
+                        files = decoded;
+                        encoded = null;
+                    }
+                }
+            }
+            return decoded;
+        }
+
+        /** Decodes a layer whose structure was checked when the bundle was opened. */
+        private static Map<String, Map<String, String>> decode(ByteBuffer body) {
+            int fileCount = body.getInt();
+            Map<String, Map<String, String>> files = new HashMap<>((int) (fileCount / 0.75f) + 1);
+            for (int i = 0; i < fileCount; i++) {
+                String fileName = KrauseningSnapshotCache.readString(body);
+                int entryCount = body.getInt();
+                Map<String, String> entries = new HashMap<>((int) (entryCount / 0.75f) + 1);
+                for (int j = 0; j < entryCount; j++) {
+                    entries.put(KrauseningSnapshotCache.readString(body), KrauseningSnapshotCache.readString(body));
+                }
+                files.put(fileName, Collections.unmodifiableMap(entries));
+            }
+            return files;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.technologybrewery.krausening;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the directories of a {@link Krausening} instance for changes and
+ * asks it to refresh only the files that changed. Bursts of events, such as an
+ * editor writing a file in several steps or a Kubernetes ConfigMap swapping
+ * its {@code ..data} symlink, are debounced into a single refresh that happens
+ * once the directories have been quiet for the configured period.
+ */
+final class KrauseningFileWatcher implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KrauseningFileWatcher.class);
+
+    private static final String PROPERTIES_SUFFIX = ".properties";
+
+    private final Krausening krausening;
+
+    private final long debounceMillis;
+
+    private final WatchService watchService;
+
+    /** Watched directories, keyed by their registration. */
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    private final Thread watcherThread;
+
+    /**
+     * Creates a watcher for the given instance. Call {@link #watch(Collection)}
+     * and {@link #start()} to begin receiving changes.
+     *
+     * @param krausening
+     *            the instance to refresh
+     * @param debounceMillis
+     *            how long the directories must be quiet before refreshing
+     * @throws IOException
+     *             if the platform watch service cannot be created
+     */
+    KrauseningFileWatcher(Krausening krausening, long debounceMillis) throws IOException {
+        this.krausening = krausening;
+        this.debounceMillis = debounceMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watcherThread = new Thread(this, "krausening-watcher");
+        this.watcherThread.setDaemon(true);
+    }
+
+    /**
+     * Replaces the set of watched directories. Directories that do not exist
+     * are skipped.
+     *
+     * @param directories
+     *            the directories to watch
+     */
+    synchronized void watch(Collection<File> directories) {
+        for (WatchKey watchKey : watchedDirectories.keySet()) {
+            watchKey.cancel();
+        }
+        watchedDirectories.clear();
+
+        for (File directory : directories) {
+            if (directory.isDirectory()) {
+                Path path = directory.toPath();
+                try {
+                    watchedDirectories.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE),
+                            path);
+                    LOGGER.debug("Watching {} for changes", path);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not watch " + path + " for changes", e);
+                }
+            }
+        }
+    }
+
+    void start() {
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching. Any refresh already in progress is allowed to complete.
+     */
+    void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not close the Krausening watch service", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Set<File> changedFiles = new HashSet<>();
+                boolean rescanLocations = drain(watchService.take(), changedFiles);
+
+                // keep collecting until a full debounce period passes without events
+                WatchKey watchKey;
+                while ((watchKey = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    rescanLocations |= drain(watchKey, changedFiles);
+                }
+
+                if (!changedFiles.isEmpty() || rescanLocations) {
+                    try {
+                        krausening.reloadChangedFiles(changedFiles, rescanLocations);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Could not refresh changed Krausening properties", e);
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.debug("Stopped watching Krausening locations");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Collects the events of a signalled key.
+     *
+     * @return true if an event could not be attributed to a single
+     *         .properties file, so that every location should be rescanned
+     */
+    private boolean drain(WatchKey watchKey, Set<File> changedFiles) {
+        Path directory;
+        synchronized (this) {
+            directory = watchedDirectories.get(watchKey);
+        }
+
+        boolean rescanLocations = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == OVERFLOW || !(context instanceof Path) || directory == null) {
+                rescanLocations = true;
+            } else if (context.toString().endsWith(PROPERTIES_SUFFIX)) {
+                changedFiles.add(directory.resolve((Path) context).toFile());
+            } else {
+                // e.g., a ConfigMap update, which atomically swaps a ..data symlink
+                rescanLocations = true;
+            }
+        }
+        watchKey.reset();
+        return rescanLocations;
+    }
+
+}
@@ -0,0 +1,266 @@
+package org.technologybrewery.krausening;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of {@link Krausening} instances, keyed by override extensions
+ * subfolder. Lookups are lock-free. Unless pinned, instances may be evicted
+ * once the registry holds more than
+ * {@link Krausening#INSTANCE_REGISTRY_MAX_SIZE} of them (least recently used
+ * first), once they have not been requested for
+ * {@link Krausening#INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS}, or, with
+ * {@link Krausening#INSTANCE_REGISTRY_SOFT_REFERENCES}, when the garbage
+ * collector needs the memory. Evicted instances keep working for callers that
+ * still hold them; the next request for their key registers a new one.
+ * Instances that are watching for changes are never evicted.
+ * <p>
+ * Settings are read whenever an instance is registered, so they apply from
+ * the next miss onwards.
+ */
+final class KrauseningInstanceRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KrauseningInstanceRegistry.class);
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Soft references cleared by the garbage collector, to be removed. */
+    private final ReferenceQueue<Krausening> clearedReferences = new ReferenceQueue<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /** When idle instances were last looked for, so that hits do so at most once per expiry period. */
+    private final AtomicLong lastExpiryNanos = new AtomicLong(System.nanoTime());
+
+    private volatile int maxSize;
+    private volatile long idleExpiryNanos;
+
+    /**
+     * Returns the live instance registered for a key, counting a hit, or
+     * counts a miss.
+     *
+     * @param key
+     *            the registry key
+     * @return the registered instance, or null if there is none
+     */
+    Krausening get(String key) {
+        Entry entry = entries.get(key);
+        Krausening instance = (entry != null) ? entry.getInstance() : null;
+        long now = System.nanoTime();
+        if (instance != null && isExpired(entry, instance, now)) {
+            evict(key, entry, "idle");
+            instance = null;
+        } else if (instance == null && entry != null) {
+            evict(key, entry, "collected");
+        }
+
+        if (instance == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+            entry.lastAccessNanos = now;
+            long lastExpiry = lastExpiryNanos.get();
+            if (idleExpiryNanos > 0L && now - lastExpiry > idleExpiryNanos
+                    && lastExpiryNanos.compareAndSet(lastExpiry, now)) {
+                evictExpired(now);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Registers an instance for a key, unless another thread registered a live
+     * instance for it first, then evicts any instances that no longer fit.
+     * Nothing is loaded, or evicted, while the registry is being updated.
+     *
+     * @param key
+     *            the registry key
+     * @param instance
+     *            the newly created instance
+     * @param pinned
+     *            whether the instance may never be evicted
+     * @return the instance registered for the key
+     */
+    Krausening register(String key, Krausening instance, boolean pinned) {
+        readSettings();
+        Entry created = new Entry(key, instance, pinned);
+        Krausening registered = null;
+        while (registered == null) {
+            Entry existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                registered = instance;
+            } else {
+                registered = existing.getInstance();
+                if (registered == null && entries.replace(key, existing, created)) {
+                    evictionCount.increment();
+                    registered = instance;
+                }
+            }
+        }
+
+        long now = System.nanoTime();
+        removeCollected();
+        if (idleExpiryNanos > 0L) {
+            lastExpiryNanos.set(now);
+            evictExpired(now);
+        }
+        if (maxSize > 0) {
+            evictLeastRecentlyUsed();
+        }
+        return registered;
+    }
+
+    /**
+     * Registers an instance for a key, replacing any registered instance.
+     *
+     * @param key
+     *            the registry key
+     * @param instance
+     *            the instance
+     * @param pinned
+     *            whether the instance may never be evicted
+     */
+    void put(String key, Krausening instance, boolean pinned) {
+        entries.put(key, new Entry(key, instance, pinned));
+    }
+
+    /**
+     * @return counters of this registry, as of now
+     */
+    InstanceRegistryStatistics getStatistics() {
+        return new InstanceRegistryStatistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), entries.size());
+    }
+
+    private boolean isExpired(Entry entry, Krausening instance, long now) {
+        long expiryNanos = idleExpiryNanos;
+        return expiryNanos > 0L && !entry.pinned && now - entry.lastAccessNanos > expiryNanos
+                && !instance.isWatchingForChanges();
+    }
+
+    private void evictExpired(long now) {
+        for (Map.Entry<String, Entry> registered : entries.entrySet()) {
+            Entry entry = registered.getValue();
+            Krausening instance = entry.getInstance();
+            if (instance != null && isExpired(entry, instance, now)) {
+                evict(registered.getKey(), entry, "idle");
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently requested instances until the registry holds
+     * at most {@link #maxSize} evictable ones. Each eviction scans the
+     * registry, which only happens on misses once the registry is full.
+     */
+    private void evictLeastRecentlyUsed() {
+        int limit = maxSize;
+        while (true) {
+            int evictableCount = 0;
+            String oldestKey = null;
+            Entry oldest = null;
+            for (Map.Entry<String, Entry> registered : entries.entrySet()) {
+                Entry entry = registered.getValue();
+                Krausening instance = entry.getInstance();
+                if (entry.pinned || instance == null || instance.isWatchingForChanges()) {
+                    continue;
+                }
+                evictableCount++;
+                if (oldest == null || entry.lastAccessNanos - oldest.lastAccessNanos < 0L) {
+                    oldestKey = registered.getKey();
+                    oldest = entry;
+                }
+            }
+            if (evictableCount <= limit || !evict(oldestKey, oldest, "least recently used")) {
+                return;
+            }
+        }
+    }
+
+    private void removeCollected() {
+        InstanceReference reference;
+        while ((reference = (InstanceReference) clearedReferences.poll()) != null) {
+            Entry entry = entries.get(reference.key);
+            if (entry != null && entry.softInstance == reference) {
+                evict(reference.key, entry, "collected");
+            }
+        }
+    }
+
+    private boolean evict(String key, Entry entry, String reason) {
+        boolean evicted = entries.remove(key, entry);
+        if (evicted) {
+            evictionCount.increment();
+            LOGGER.debug("Evicted {} Krausening instance {}", reason, key);
+        }
+        return evicted;
+    }
+
+    private void readSettings() {
+        maxSize = (int) Math.min(Integer.MAX_VALUE, readNonNegative(Krausening.INSTANCE_REGISTRY_MAX_SIZE));
+        idleExpiryNanos = TimeUnit.MILLISECONDS
+                .toNanos(readNonNegative(Krausening.INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS));
+    }
+
+    private static long readNonNegative(String propertyName) {
+        String value = System.getProperty(propertyName);
+        if (StringUtils.isBlank(value)) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid {} '{}', not evicting Krausening instances by it", propertyName, value);
+            return 0L;
+        }
+    }
+
+    /**
+     * A registered instance, held strongly or, for evictable instances when
+     * {@link Krausening#INSTANCE_REGISTRY_SOFT_REFERENCES} is set, softly.
+     */
+    private final class Entry {
+
+        private final Krausening strongInstance;
+        private final InstanceReference softInstance;
+        private final boolean pinned;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private Entry(String key, Krausening instance, boolean pinned) {
+            this.pinned = pinned;
+            if (!pinned && Boolean.parseBoolean(System.getProperty(Krausening.INSTANCE_REGISTRY_SOFT_REFERENCES))) {
+                strongInstance = null;
+                softInstance = new InstanceReference(key, instance, clearedReferences);
+            } else {
+                strongInstance = instance;
+                softInstance = null;
+            }
+        }
+
+        private Krausening getInstance() {
+            return (strongInstance != null) ? strongInstance : softInstance.get();
+        }
+    }
+
+    private static final class InstanceReference extends SoftReference<Krausening> {
+
+        private final String key;
+
+        private InstanceReference(String key, Krausening instance, ReferenceQueue<Krausening> queue) {
+            super(instance, queue);
+            this.key = key;
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches measurements of Krausening's loading and serving of properties to
+ * the registered {@link KrauseningMetricsListener}s. Listeners found through
+ * {@link ServiceLoader} are registered automatically; others can be added with
+ * {@link #addListener(KrauseningMetricsListener)}. When
+ * {@link Krausening#METRICS_MBEAN} is true, a
+ * {@link KrauseningMetricsCollector} is also registered, and published to the
+ * platform MBean server as {@value #MBEAN_NAME}.
+ * <p>
+ * Listeners are held in an array that is replaced whenever one is added or
+ * removed, so checking whether any are registered is a single volatile read.
+ * Nothing is measured while there are none.
+ */
+public final class KrauseningMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KrauseningMetrics.class);
+
+    /** Name of the MBean registered by {@link #registerMBean()}. */
+    public static final String MBEAN_NAME = "org.technologybrewery.krausening:type=Metrics";
+
+    private static final KrauseningMetricsListener[] NO_LISTENERS = new KrauseningMetricsListener[0];
+
+    private static volatile KrauseningMetricsListener[] listeners = NO_LISTENERS;
+
+    private static KrauseningMetricsCollector mBeanCollector;
+
+    static {
+        for (KrauseningMetricsListener listener : loadServiceListeners()) {
+            addListener(listener);
+        }
+        if (Boolean.parseBoolean(System.getProperty(Krausening.METRICS_MBEAN))) {
+            try {
+                registerMBean();
+            } catch (KrauseningException e) {
+                // metrics must never prevent properties from loading
+                LOGGER.error("Krausening metrics will not be available through JMX", e);
+            }
+        }
+    }
+
+    private KrauseningMetrics() {
+    }
+
+    /**
+     * Registers a listener. Registering the same listener more than once has
+     * no effect.
+     * 
+     * @param listener
+     *            the listener to notify of measurements
+     */
+    public static synchronized void addListener(KrauseningMetricsListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        List<KrauseningMetricsListener> updated = new ArrayList<>(Arrays.asList(listeners));
+        if (!updated.contains(listener)) {
+            updated.add(listener);
+            listeners = updated.toArray(NO_LISTENERS);
+        }
+    }
+
+    /**
+     * Unregisters a listener.
+     * 
+     * @param listener
+     *            the listener to stop notifying
+     */
+    public static synchronized void removeListener(KrauseningMetricsListener listener) {
+        List<KrauseningMetricsListener> updated = new ArrayList<>(Arrays.asList(listeners));
+        if (updated.remove(listener)) {
+            listeners = updated.toArray(NO_LISTENERS);
+        }
+    }
+
+    /**
+     * @return the registered listeners, in the order they are notified
+     */
+    public static List<KrauseningMetricsListener> getListeners() {
+        return Collections.unmodifiableList(Arrays.asList(listeners));
+    }
+
+    /**
+     * Publishes a {@link KrauseningMetricsCollector} to the platform MBean
+     * server as {@value #MBEAN_NAME}, if that has not already been done, and
+     * registers it as a listener.
+     * 
+     * @return the collector
+     */
+    public static synchronized KrauseningMetricsCollector registerMBean() {
+        if (mBeanCollector == null) {
+            KrauseningMetricsCollector collector = new KrauseningMetricsCollector();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(MBEAN_NAME);
+                if (server.isRegistered(name)) {
+                    // e.g., registered by another class loader of a shared container
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(collector, name);
+            } catch (JMException e) {
+                throw new KrauseningException("Could not register the Krausening metrics MBean", e);
+            }
+            mBeanCollector = collector;
+            LOGGER.info("Registered Krausening metrics MBean {}", MBEAN_NAME);
+        }
+        addListener(mBeanCollector);
+        return mBeanCollector;
+    }
+
+    /**
+     * Returns whether any listeners are registered. Callers check this before
+     * taking measurements, so nothing is measured while there are none.
+     * 
+     * @return true if measurements will be reported
+     */
+    public static boolean isEnabled() {
+        return listeners.length != 0;
+    }
+
+    /**
+     * Reports that the files of a {@code KrauseningConfig} were merged.
+     * 
+     * @param propertiesFileNames
+     *            the files that were merged, in the order they were merged
+     * @param keyCount
+     *            number of properties after merging
+     * @param mergeNanos
+     *            time spent merging
+     * @see KrauseningMetricsListener#propertiesMerged(List, int, long)
+     */
+    public static void propertiesMerged(List<String> propertiesFileNames, int keyCount, long mergeNanos) {
+        for (KrauseningMetricsListener listener : listeners) {
+            try {
+                listener.propertiesMerged(propertiesFileNames, keyCount, mergeNanos);
+            } catch (RuntimeException e) {
+                logListenerFailure(listener, e);
+            }
+        }
+    }
+
+    static void fileParsed(File file, long bytes, int keyCount, long parseNanos) {
+        for (KrauseningMetricsListener listener : listeners) {
+            try {
+                listener.fileParsed(file, bytes, keyCount, parseNanos);
+            } catch (RuntimeException e) {
+                logListenerFailure(listener, e);
+            }
+        }
+    }
+
+    static void locationLoaded(LocationLoadStatistics statistics) {
+        for (KrauseningMetricsListener listener : listeners) {
+            try {
+                listener.locationLoaded(statistics);
+            } catch (RuntimeException e) {
+                logListenerFailure(listener, e);
+            }
+        }
+    }
+
+    static void propertiesLoaded(long snapshotVersion, long elapsedNanos) {
+        for (KrauseningMetricsListener listener : listeners) {
+            try {
+                listener.propertiesLoaded(snapshotVersion, elapsedNanos);
+            } catch (RuntimeException e) {
+                logListenerFailure(listener, e);
+            }
+        }
+    }
+
+    static void propertiesRefreshed(int changedFileCount, long elapsedNanos) {
+        for (KrauseningMetricsListener listener : listeners) {
+            try {
+                listener.propertiesRefreshed(changedFileCount, elapsedNanos);
+            } catch (RuntimeException e) {
+                logListenerFailure(listener, e);
+            }
+        }
+    }
+
+    static void reloadCoalesced() {
+        for (KrauseningMetricsListener listener : listeners) {
+            try {
+                listener.reloadCoalesced();
+            } catch (RuntimeException e) {
+                logListenerFailure(listener, e);
+            }
+        }
+    }
+
+    static void valueDecrypted(long decryptNanos) {
+        for (KrauseningMetricsListener listener : listeners) {
+            try {
+                listener.valueDecrypted(decryptNanos);
+            } catch (RuntimeException e) {
+                logListenerFailure(listener, e);
+            }
+        }
+    }
+
+    private static void logListenerFailure(KrauseningMetricsListener listener, RuntimeException e) {
+        LOGGER.warn("Krausening metrics listener {} failed", listener.getClass().getName(), e);
+    }
+
+    private static List<KrauseningMetricsListener> loadServiceListeners() {
+        List<KrauseningMetricsListener> serviceListeners = new ArrayList<>();
+        try {
+            for (KrauseningMetricsListener listener : ServiceLoader.load(KrauseningMetricsListener.class,
+                    KrauseningMetrics.class.getClassLoader())) {
+                serviceListeners.add(listener);
+            }
+        } catch (ServiceConfigurationError e) {
+            LOGGER.error("Could not load Krausening metrics listeners", e);
+        }
+        return serviceListeners;
+    }
+
+}
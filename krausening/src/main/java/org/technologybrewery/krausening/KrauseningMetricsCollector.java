@@ -0,0 +1,165 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link KrauseningMetricsListener} that accumulates running totals of every
+ * measurement, which are published through JMX by
+ * {@link KrauseningMetrics#registerMBean()}. Totals are kept in
+ * {@link LongAdder}s, so concurrent loader threads do not contend on them.
+ */
+public class KrauseningMetricsCollector implements KrauseningMetricsListener, KrauseningMetricsCollectorMBean {
+
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private volatile long lastLoadNanos;
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshNanos = new LongAdder();
+    private final LongAdder coalescedReloadCount = new LongAdder();
+    private final LongAdder filesParsed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder keysRead = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder decryptCount = new LongAdder();
+    private final LongAdder decryptNanos = new LongAdder();
+    private final LongAdder mergeCount = new LongAdder();
+    private final LongAdder mergeNanos = new LongAdder();
+
+    /** Most recent statistics of each location type. */
+    private final Map<String, LocationLoadStatistics> locationStatistics = new ConcurrentHashMap<>();
+
+    @Override
+    public void fileParsed(File file, long bytes, int keyCount, long fileParseNanos) {
+        filesParsed.increment();
+        bytesRead.add(bytes);
+        keysRead.add(keyCount);
+        parseNanos.add(fileParseNanos);
+    }
+
+    @Override
+    public void locationLoaded(LocationLoadStatistics statistics) {
+        locationStatistics.put(statistics.getLocationType(), statistics);
+    }
+
+    @Override
+    public void propertiesLoaded(long snapshotVersion, long elapsedNanos) {
+        loadCount.increment();
+        loadNanos.add(elapsedNanos);
+        lastLoadNanos = elapsedNanos;
+    }
+
+    @Override
+    public void propertiesRefreshed(int changedFileCount, long elapsedNanos) {
+        refreshCount.increment();
+        refreshNanos.add(elapsedNanos);
+    }
+
+    @Override
+    public void reloadCoalesced() {
+        coalescedReloadCount.increment();
+    }
+
+    @Override
+    public void valueDecrypted(long valueDecryptNanos) {
+        decryptCount.increment();
+        decryptNanos.add(valueDecryptNanos);
+    }
+
+    @Override
+    public void propertiesMerged(List<String> propertiesFileNames, int keyCount, long propertiesMergeNanos) {
+        mergeCount.increment();
+        mergeNanos.add(propertiesMergeNanos);
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    @Override
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    @Override
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    @Override
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    @Override
+    public long getRefreshNanos() {
+        return refreshNanos.sum();
+    }
+
+    @Override
+    public long getCoalescedReloadCount() {
+        return coalescedReloadCount.sum();
+    }
+
+    @Override
+    public long getFilesParsed() {
+        return filesParsed.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getKeysRead() {
+        return keysRead.sum();
+    }
+
+    @Override
+    public long getParseNanos() {
+        return parseNanos.sum();
+    }
+
+    @Override
+    public String[] getLocationStatistics() {
+        return locationStatistics.values().stream().map(LocationLoadStatistics::toString).sorted()
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getDecryptCount() {
+        return decryptCount.sum();
+    }
+
+    @Override
+    public long getDecryptNanos() {
+        return decryptNanos.sum();
+    }
+
+    @Override
+    public long getMergeCount() {
+        return mergeCount.sum();
+    }
+
+    @Override
+    public long getMergeNanos() {
+        return mergeNanos.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder total : new LongAdder[] { loadCount, loadNanos, refreshCount, refreshNanos,
+                coalescedReloadCount, filesParsed, bytesRead, keysRead, parseNanos, decryptCount, decryptNanos,
+                mergeCount, mergeNanos }) {
+            total.reset();
+        }
+        lastLoadNanos = 0L;
+        locationStatistics.clear();
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.technologybrewery.krausening;
+
+/**
+ * JMX view of the totals accumulated by a {@link KrauseningMetricsCollector}.
+ * Times are reported in nanoseconds.
+ */
+public interface KrauseningMetricsCollectorMBean {
+
+    /**
+     * @return number of full loads ({@link Krausening#loadProperties()})
+     */
+    long getLoadCount();
+
+    /**
+     * @return total time spent in full loads
+     */
+    long getLoadNanos();
+
+    /**
+     * @return time spent in the most recent full load
+     */
+    long getLastLoadNanos();
+
+    /**
+     * @return number of refreshes that re-read only changed files
+     */
+    long getRefreshCount();
+
+    /**
+     * @return total time spent in refreshes
+     */
+    long getRefreshNanos();
+
+    /**
+     * @return number of requested reloads satisfied without loading again
+     */
+    long getCoalescedReloadCount();
+
+    /**
+     * @return number of physical files read
+     */
+    long getFilesParsed();
+
+    /**
+     * @return total size of the physical files read
+     */
+    long getBytesRead();
+
+    /**
+     * @return total number of properties in the physical files read
+     */
+    long getKeysRead();
+
+    /**
+     * @return total time spent reading and parsing physical files
+     */
+    long getParseNanos();
+
+    /**
+     * @return the most recent load statistics of each location type
+     */
+    String[] getLocationStatistics();
+
+    /**
+     * @return number of encrypted values decrypted
+     */
+    long getDecryptCount();
+
+    /**
+     * @return total time spent decrypting values
+     */
+    long getDecryptNanos();
+
+    /**
+     * @return number of times the files of a {@code KrauseningConfig} were
+     *         merged
+     */
+    long getMergeCount();
+
+    /**
+     * @return total time spent merging the files of {@code KrauseningConfig}s
+     */
+    long getMergeNanos();
+
+    /**
+     * Sets every total back to zero.
+     */
+    void reset();
+
+}
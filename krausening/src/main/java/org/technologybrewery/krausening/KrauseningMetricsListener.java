@@ -0,0 +1,104 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Receives measurements of how Krausening loads and serves properties, so they
+ * can be bridged to a metrics system. Listeners are registered with
+ * {@link KrauseningMetrics}, either programmatically or by listing the
+ * implementing class in
+ * {@code META-INF/services/org.technologybrewery.krausening.KrauseningMetricsListener}.
+ * <p>
+ * Methods are called on the thread doing the work being measured (including
+ * loader threads when {@link Krausening#LOAD_PARALLELISM} is set), possibly
+ * concurrently, so implementations must be thread-safe and should return
+ * quickly. Every method does nothing by default, so implementations only need
+ * to override the measurements they are interested in.
+ */
+public interface KrauseningMetricsListener {
+
+    /**
+     * Called after a physical .properties file has been read, whether during a
+     * load, on first access when loading lazily, or when refreshing a changed
+     * file.
+     * 
+     * @param file
+     *            the file that was read
+     * @param bytes
+     *            size of the file
+     * @param keyCount
+     *            number of properties in the file
+     * @param parseNanos
+     *            time spent reading and parsing the file
+     */
+    default void fileParsed(File file, long bytes, int keyCount, long parseNanos) {
+    }
+
+    /**
+     * Called after every file of a location (i.e., base, extensions, or
+     * override extensions) has been read during a load.
+     * 
+     * @param statistics
+     *            timings, file count, bytes, and keys of the location
+     */
+    default void locationLoaded(LocationLoadStatistics statistics) {
+    }
+
+    /**
+     * Called after {@link Krausening#loadProperties()} has loaded every
+     * location.
+     * 
+     * @param snapshotVersion
+     *            version of the properties that were loaded
+     * @param elapsedNanos
+     *            time spent loading
+     */
+    default void propertiesLoaded(long snapshotVersion, long elapsedNanos) {
+    }
+
+    /**
+     * Called after only the files that changed have been re-read, such as when
+     * {@link Krausening#startWatchingForChanges() watching for changes}.
+     * 
+     * @param changedFileCount
+     *            number of physical files that changed
+     * @param elapsedNanos
+     *            time spent refreshing
+     */
+    default void propertiesRefreshed(int changedFileCount, long elapsedNanos) {
+    }
+
+    /**
+     * Called when a reload requested through a {@link ReloadCoordinator} was
+     * satisfied by properties that were already loaded.
+     */
+    default void reloadCoalesced() {
+    }
+
+    /**
+     * Called after an encrypted value has been decrypted. Values served from
+     * the cache of decrypted values are not reported.
+     * 
+     * @param decryptNanos
+     *            time spent decrypting
+     */
+    default void valueDecrypted(long decryptNanos) {
+    }
+
+    /**
+     * Called after the files of a {@code KrauseningConfig} have been merged
+     * using its merge policy. Merges that are shared with another config with
+     * the same files and merge policy are not reported.
+     * 
+     * @param propertiesFileNames
+     *            the files that were merged, in the order they were merged
+     * @param keyCount
+     *            number of properties after merging
+     * @param mergeNanos
+     *            time spent merging
+     */
+    default void propertiesMerged(List<String> propertiesFileNames, int keyCount, long mergeNanos) {
+    }
+
+}
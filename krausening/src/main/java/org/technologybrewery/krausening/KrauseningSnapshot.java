@@ -0,0 +1,259 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+
+/**
+ * An immutable, point-in-time view of every {@link Properties} file managed by
+ * a {@link Krausening} instance. Snapshots are fully assembled (base +
+ * extensions + override extensions) before they are published, so readers
+ * never observe a partially loaded tree.
+ */
+final class KrauseningSnapshot {
+
+    /**
+     * Shared across all instances so that versions are unique and always
+     * increasing, even if the default instance is swapped out.
+     */
+    private static final AtomicLong VERSION_SEQUENCE = new AtomicLong();
+
+    /** Snapshot that is visible before the first load has completed. */
+    static final KrauseningSnapshot EMPTY = new KrauseningSnapshot(0L,
+            Collections.<String, ManagedPropertiesFile>emptyMap(), Collections.<LocationLoadStatistics>emptyList(),
+            Collections.<String, File>emptyMap(), PropertiesFactory.PLAIN, false);
+
+    private final long version;
+
+    private final Map<String, ManagedPropertiesFile> managedProperties;
+
+    private final List<LocationLoadStatistics> loadStatistics;
+
+    /** Directories that were loaded, keyed by location type, lowest precedence first. */
+    private final Map<String, File> locations;
+
+    private final PropertiesFactory propertiesFactory;
+
+    private final boolean lazy;
+
+    private KrauseningSnapshot(long version, Map<String, ManagedPropertiesFile> managedProperties,
+            List<LocationLoadStatistics> loadStatistics, Map<String, File> locations,
+            PropertiesFactory propertiesFactory, boolean lazy) {
+        this.version = version;
+        this.managedProperties = managedProperties;
+        this.loadStatistics = loadStatistics;
+        this.locations = locations;
+        this.propertiesFactory = propertiesFactory;
+        this.lazy = lazy;
+    }
+
+    /**
+     * Creates a new snapshot from a completely loaded (or, for lazy loading,
+     * completely indexed) set of properties, assigning it the next available
+     * version.
+     *
+     * @param managedProperties
+     *            the managed files, keyed by file name
+     * @param loadStatistics
+     *            timing information for each location that was loaded
+     * @param locations
+     *            the directories that were loaded, keyed by location type,
+     *            lowest precedence first
+     * @param propertiesFactory
+     *            creates the (possibly decrypting) containers that files are
+     *            merged into
+     * @param lazy
+     *            whether files are read on first access
+     * @return new snapshot
+     */
+    static KrauseningSnapshot create(Map<String, ManagedPropertiesFile> managedProperties,
+            List<LocationLoadStatistics> loadStatistics, Map<String, File> locations,
+            PropertiesFactory propertiesFactory, boolean lazy) {
+        Map<String, ManagedPropertiesFile> copy = new HashMap<>(managedProperties);
+        return new KrauseningSnapshot(VERSION_SEQUENCE.incrementAndGet(), Collections.unmodifiableMap(copy),
+                Collections.unmodifiableList(new ArrayList<>(loadStatistics)),
+                Collections.unmodifiableMap(new LinkedHashMap<>(locations)), propertiesFactory, lazy);
+    }
+
+    /**
+     * Returns a snapshot that reflects the current contents of the given
+     * physical files. Managed files that are unaffected are shared with this
+     * snapshot as-is, and only physical files that changed are re-read.
+     *
+     * @param changedFiles
+     *            physical .properties files that were created, modified, or
+     *            deleted
+     * @param rescanLocations
+     *            whether every file in every location should also be checked,
+     *            for use when a change notification did not identify the
+     *            affected files (e.g., a swapped symlink)
+     * @return a new snapshot with the next version, or this snapshot if
+     *         nothing changed
+     */
+    KrauseningSnapshot refresh(Set<File> changedFiles, boolean rescanLocations) {
+        Set<String> candidateFileNames = new HashSet<>();
+        for (File changedFile : changedFiles) {
+            candidateFileNames.add(changedFile.getName());
+        }
+        if (rescanLocations) {
+            candidateFileNames.addAll(managedProperties.keySet());
+            for (File location : locations.values()) {
+                String[] fileNames = location.list((FilenameFilter) new SuffixFileFilter(".properties"));
+                if (fileNames != null) {
+                    Collections.addAll(candidateFileNames, fileNames);
+                }
+            }
+        }
+
+        Map<String, ManagedPropertiesFile> refreshedProperties = new HashMap<>(managedProperties);
+        boolean changed = false;
+        for (String fileName : candidateFileNames) {
+            List<File> sourceFiles = findSourceFiles(fileName);
+            ManagedPropertiesFile previous = managedProperties.get(fileName);
+            ManagedPropertiesFile refreshed;
+            if (sourceFiles.isEmpty()) {
+                refreshed = null;
+            } else if (previous != null) {
+                refreshed = previous.refresh(sourceFiles, changedFiles);
+            } else if (lazy) {
+                refreshed = ManagedPropertiesFile.deferred(fileName, sourceFiles, propertiesFactory);
+            } else {
+                List<ParsedPropertiesFile> parsedFiles = new ArrayList<>(sourceFiles.size());
+                for (File sourceFile : sourceFiles) {
+                    parsedFiles.add(ParsedPropertiesFile.read(sourceFile));
+                }
+                refreshed = ManagedPropertiesFile.loaded(fileName, parsedFiles, propertiesFactory);
+            }
+
+            if (refreshed != previous) {
+                changed = true;
+                if (refreshed == null) {
+                    refreshedProperties.remove(fileName);
+                } else {
+                    refreshedProperties.put(fileName, refreshed);
+                }
+            }
+        }
+
+        return changed ? new KrauseningSnapshot(VERSION_SEQUENCE.incrementAndGet(),
+                Collections.unmodifiableMap(refreshedProperties), loadStatistics, locations, propertiesFactory,
+                lazy) : this;
+    }
+
+    /**
+     * Returns whether the given file is loaded exactly as it currently exists
+     * on disk, based on the modification time and size of its physical files.
+     *
+     * @param fileName
+     *            the file name to check
+     * @return true if none of its physical files were changed, added, or
+     *         removed
+     */
+    boolean isCurrent(String fileName) {
+        List<File> sourceFiles = findSourceFiles(fileName);
+        ManagedPropertiesFile managedFile = managedProperties.get(fileName);
+        return (managedFile != null) ? managedFile.isCurrent(sourceFiles) : sourceFiles.isEmpty();
+    }
+
+    private List<File> findSourceFiles(String fileName) {
+        List<File> sourceFiles = new ArrayList<>(locations.size());
+        for (File location : locations.values()) {
+            File sourceFile = new File(location, fileName);
+            if (sourceFile.isFile()) {
+                sourceFiles.add(sourceFile);
+            }
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * Returns the version of this snapshot. Versions increase monotonically
+     * each time a snapshot is published.
+     *
+     * @return snapshot version
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the properties for the given file name.
+     *
+     * @param propertiesFileName
+     *            the file name to retrieve
+     * @return the properties or null if that file name is not known
+     */
+    Properties getProperties(String propertiesFileName) {
+        ManagedPropertiesFile managedFile = managedProperties.get(propertiesFileName);
+        return (managedFile != null) ? managedFile.getProperties() : null;
+    }
+
+    /**
+     * Returns the immutable property map for the given file name.
+     *
+     * @param propertiesFileName
+     *            the file name to retrieve
+     * @return the property map or null if that file name is not known
+     */
+    FrozenPropertyMap getPropertyMap(String propertiesFileName) {
+        ManagedPropertiesFile managedFile = managedProperties.get(propertiesFileName);
+        return (managedFile != null) ? managedFile.getPropertyMap() : null;
+    }
+
+    /**
+     * Returns the managed file for the given file name. Snapshots share the
+     * managed files that a refresh did not affect, so comparing them by
+     * identity detects unchanged files without reading them.
+     *
+     * @param propertiesFileName
+     *            the file name to retrieve
+     * @return the managed file or null if that file name is not known
+     */
+    ManagedPropertiesFile getManagedFile(String propertiesFileName) {
+        return managedProperties.get(propertiesFileName);
+    }
+
+    /**
+     * Returns the layered view for the given file name.
+     *
+     * @param propertiesFileName
+     *            the file name to retrieve
+     * @return the layered view or null if that file name is not known
+     */
+    LayeredPropertyView getLayeredView(String propertiesFileName) {
+        ManagedPropertiesFile managedFile = managedProperties.get(propertiesFileName);
+        return (managedFile != null) ? managedFile.getLayeredView(locations) : null;
+    }
+
+    /**
+     * Returns timing information for each location read to build this
+     * snapshot.
+     *
+     * @return unmodifiable list of statistics, in load order
+     */
+    List<LocationLoadStatistics> getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    /**
+     * Returns the directories this snapshot was loaded from.
+     *
+     * @return the directories, lowest precedence first
+     */
+    Collection<File> getLocations() {
+        return locations.values();
+    }
+
+}
@@ -0,0 +1,330 @@
+package org.technologybrewery.krausening;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on-disk cache of the parsed contents of every physical .properties file
+ * of a load, so that a restart with unchanged files does not parse them
+ * again. The cache holds a manifest entry for each file (absolute path, size,
+ * modification time, and CRC-32C of its content) followed by its entries, as
+ * written (encrypted values stay encrypted). It is memory-mapped and decoded
+ * in one pass when a load starts.
+ * <p>
+ * A cached file is used when the file on disk has the same size and
+ * modification time. When only the modification time differs (e.g., the files
+ * were copied into a new container image), its content is checksummed and the
+ * cached entries are still used if the checksum matches. Any other file is
+ * parsed as usual. Once the load completes, the cache is rewritten if any file
+ * was parsed, revalidated, or removed; the new cache is written to a temporary
+ * file and moved into place, so a concurrent reader never sees a partial one.
+ * A missing, corrupt, or unreadable cache is simply rebuilt.
+ */
+final class KrauseningSnapshotCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KrauseningSnapshotCache.class);
+
+    /** "KRSC". */
+    private static final int MAGIC = 0x4B525343;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path cacheFile;
+
+    /** Cached files, keyed by absolute path. */
+    private final Map<String, CachedFile> cachedFiles;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    /** Whether the cache no longer matches the files that were loaded. */
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    private KrauseningSnapshotCache(Path cacheFile, Map<String, CachedFile> cachedFiles) {
+        this.cacheFile = cacheFile;
+        this.cachedFiles = cachedFiles;
+    }
+
+    /**
+     * Opens the given cache, treating it as empty if it does not exist or
+     * cannot be read.
+     *
+     * @param cacheFile
+     *            the cache file
+     * @return the cache
+     */
+    static KrauseningSnapshotCache open(File cacheFile) {
+        Path path = cacheFile.toPath();
+        Map<String, CachedFile> cachedFiles = Collections.emptyMap();
+        if (Files.isRegularFile(path)) {
+            try {
+                cachedFiles = decode(path);
+                LOGGER.debug("Opened Krausening snapshot cache {} with {} file(s)", path, cachedFiles.size());
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Ignoring unreadable Krausening snapshot cache {}: {}", path, e.toString());
+            }
+        }
+        return new KrauseningSnapshotCache(path, cachedFiles);
+    }
+
+    /**
+     * Returns the contents of the given file, from the cache if it is still
+     * valid for the file and by parsing it otherwise. Safe to call from
+     * concurrent loader threads.
+     *
+     * @param file
+     *            the .properties file to read
+     * @return the parsed file
+     */
+    ParsedPropertiesFile read(File file) {
+        CachedFile cachedFile = cachedFiles.get(file.getAbsolutePath());
+        if (cachedFile != null) {
+            long start = System.nanoTime();
+            long lastModified = file.lastModified();
+            long length = file.length();
+            if (length == cachedFile.length) {
+                boolean valid = (lastModified == cachedFile.lastModified);
+                if (!valid && hasChecksum(file, cachedFile.checksum)) {
+                    // same content, new timestamp: keep the entries, record the timestamp
+                    valid = true;
+                    stale.set(true);
+                }
+                if (valid) {
+                    hits.incrementAndGet();
+                    return ParsedPropertiesFile.restore(file, cachedFile.entries, System.nanoTime() - start,
+                            lastModified, length, cachedFile.checksum);
+                }
+            }
+        }
+        stale.set(true);
+        return ParsedPropertiesFile.read(file);
+    }
+
+    /**
+     * Rewrites the cache with the given files, unless it already holds exactly
+     * those files as they are on disk. Failures are logged, as the properties
+     * themselves have been loaded regardless.
+     *
+     * @param parsedFiles
+     *            every physical file of the load that just completed
+     */
+    void saveIfStale(Collection<ParsedPropertiesFile> parsedFiles) {
+        LOGGER.debug("Restored {} of {} file(s) from the Krausening snapshot cache", hits.get(), parsedFiles.size());
+        if (!stale.get() && parsedFiles.size() == cachedFiles.size()) {
+            return;
+        }
+        try {
+            write(parsedFiles);
+            LOGGER.debug("Rewrote Krausening snapshot cache {}", cacheFile);
+        } catch (IOException e) {
+            LOGGER.warn("Could not write Krausening snapshot cache {}", cacheFile, e);
+        }
+    }
+
+    /**
+     * @return number of files restored from the cache rather than parsed
+     */
+    int getHits() {
+        return hits.get();
+    }
+
+    private void write(Collection<ParsedPropertiesFile> parsedFiles) throws IOException {
+        Path directory = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+        try {
+            CRC32C checksum = new CRC32C();
+            try (OutputStream fileOut = Files.newOutputStream(temporaryFile);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+                CheckedOutputStream checkedOut = new CheckedOutputStream(out, checksum);
+                DataOutputStream body = new DataOutputStream(checkedOut);
+                body.writeInt(MAGIC);
+                body.writeInt(FORMAT_VERSION);
+                int count = 0;
+                for (ParsedPropertiesFile parsedFile : parsedFiles) {
+                    if (parsedFile.getEntries() != null) {
+                        count++;
+                    }
+                }
+                body.writeInt(count);
+                for (ParsedPropertiesFile parsedFile : parsedFiles) {
+                    Map<String, String> entries = parsedFile.getEntries();
+                    if (entries == null) {
+                        // unreadable files are retried on every load
+                        continue;
+                    }
+                    writeString(body, parsedFile.getFile().getAbsolutePath());
+                    body.writeLong(parsedFile.getLength());
+                    body.writeLong(parsedFile.getLastModified());
+                    body.writeInt(parsedFile.getChecksum());
+                    body.writeInt(entries.size());
+                    for (Map.Entry<String, String> entry : entries.entrySet()) {
+                        writeString(body, entry.getKey());
+                        writeString(body, entry.getValue());
+                    }
+                }
+                body.flush();
+                out.writeInt((int) checksum.getValue());
+            }
+            try {
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Map<String, CachedFile> decode(Path path) throws IOException {
+        ByteBuffer body = mapChecked(path, MAGIC, FORMAT_VERSION);
+        try {
+            int fileCount = body.getInt();
+            Map<String, CachedFile> cachedFiles = new HashMap<>((int) (fileCount / 0.75f) + 1);
+            for (int i = 0; i < fileCount; i++) {
+                String absolutePath = readString(body);
+                long length = body.getLong();
+                long lastModified = body.getLong();
+                int fileChecksum = body.getInt();
+                int entryCount = body.getInt();
+                Map<String, String> entries = new HashMap<>((int) (entryCount / 0.75f) + 1);
+                for (int j = 0; j < entryCount; j++) {
+                    entries.put(readString(body), readString(body));
+                }
+                cachedFiles.put(absolutePath, new CachedFile(length, lastModified, fileChecksum, entries));
+            }
+            return cachedFiles;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated cache", e);
+        }
+    }
+
+    /**
+     * Memory-maps a file written with a CRC-32C trailer over its body, and
+     * verifies the trailer and the header.
+     *
+     * @param path
+     *            the file to map
+     * @param magic
+     *            the expected first int of the file
+     * @param formatVersion
+     *            the expected second int of the file
+     * @return the body of the file, positioned after the header and limited
+     *         before the trailer
+     * @throws IOException
+     *             if the file cannot be read, is truncated, or does not match
+     *             its trailer or the expected header
+     */
+    static ByteBuffer mapChecked(Path path, int magic, int formatVersion) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < 16) {
+            throw new IOException("Truncated file");
+        }
+
+        ByteBuffer body = buffer.duplicate();
+        body.limit(buffer.limit() - 4);
+        CRC32C checksum = new CRC32C();
+        checksum.update(body.duplicate());
+        if ((int) checksum.getValue() != buffer.getInt(buffer.limit() - 4)) {
+            throw new IOException("Checksum mismatch");
+        }
+        if (body.getInt() != magic || body.getInt() != formatVersion) {
+            throw new IOException("Unsupported format");
+        }
+        return body;
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @throws BufferUnderflowException
+     *             if the string is truncated
+     */
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.duplicate().get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static boolean hasChecksum(File file, int expectedChecksum) {
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                checksum.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not checksum {}", file.getAbsolutePath(), e);
+            return false;
+        }
+        return (int) checksum.getValue() == expectedChecksum;
+    }
+
+    /**
+     * Manifest entry and entries of a single cached file.
+     */
+    private static final class CachedFile {
+        private final long length;
+        private final long lastModified;
+        private final int checksum;
+        private final Map<String, String> entries;
+
+        private CachedFile(long length, long lastModified, int checksum, Map<String, String> entries) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+            this.entries = entries;
+        }
+    }
+
+}
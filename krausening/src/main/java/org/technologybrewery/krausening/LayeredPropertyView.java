@@ -0,0 +1,144 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A view of one properties file that keeps the contents of each location
+ * (i.e., base, extensions, override) it was merged from, alongside the merged
+ * result. Looking up a value is a single probe of the merged
+ * {@link FrozenPropertyMap}, and the same probe locates a precomputed index of
+ * which location won, so the {@link PropertyProvenance} of any value can be
+ * answered without reading any files.
+ */
+public final class LayeredPropertyView {
+
+    private final FrozenPropertyMap mergedProperties;
+
+    /** Readable layers, lowest precedence first. */
+    private final List<Layer> layers;
+
+    /** Index into {@link #layers} of the winning layer, by merged map slot. */
+    private final byte[] winningLayers;
+
+    LayeredPropertyView(FrozenPropertyMap mergedProperties, List<ParsedPropertiesFile> parsedFiles,
+            Map<String, File> locations) {
+        this.mergedProperties = mergedProperties;
+
+        List<Layer> readableLayers = new ArrayList<>(parsedFiles.size());
+        for (ParsedPropertiesFile parsedFile : parsedFiles) {
+            if (parsedFile.getEntries() != null) {
+                readableLayers.add(new Layer(getLocationType(parsedFile.getFile(), locations), parsedFile.getFile(),
+                        parsedFile.getEntries()));
+            }
+        }
+        this.layers = Collections.unmodifiableList(readableLayers);
+
+        winningLayers = new byte[mergedProperties.slotCount()];
+        for (int slot = 0; slot < winningLayers.length; slot++) {
+            String key = mergedProperties.keyAt(slot);
+            if (key != null) {
+                for (int layer = layers.size() - 1; layer >= 0; layer--) {
+                    if (layers.get(layer).entries.containsKey(key)) {
+                        winningLayers[slot] = (byte) layer;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static String getLocationType(File file, Map<String, File> locations) {
+        File directory = file.getParentFile();
+        for (Map.Entry<String, File> location : locations.entrySet()) {
+            if (location.getValue().equals(directory)) {
+                return location.getKey();
+            }
+        }
+        return (directory != null) ? directory.getPath() : null;
+    }
+
+    /**
+     * Returns the merged value of the given property.
+     *
+     * @param key
+     *            the property name
+     * @return the (decrypted) value, or null if the property is not set
+     */
+    public String get(String key) {
+        return mergedProperties.get(key);
+    }
+
+    /**
+     * Returns where the value of the given property came from.
+     *
+     * @param key
+     *            the property name
+     * @return the provenance, or null if the property is not set
+     */
+    public PropertyProvenance getProvenance(String key) {
+        int slot = mergedProperties.slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        int winningLayer = winningLayers[slot];
+        List<PropertyProvenance> shadowedValues = new ArrayList<>(winningLayer);
+        for (int layer = winningLayer - 1; layer >= 0; layer--) {
+            PropertyProvenance shadowedValue = layers.get(layer).getProvenance(key,
+                    Collections.<PropertyProvenance>emptyList());
+            if (shadowedValue != null) {
+                shadowedValues.add(shadowedValue);
+            }
+        }
+        return layers.get(winningLayer).getProvenance(key, shadowedValues);
+    }
+
+    /**
+     * @return the merged property names
+     */
+    public Set<String> keySet() {
+        return mergedProperties.keySet();
+    }
+
+    /**
+     * @return the merged properties
+     */
+    public FrozenPropertyMap getMergedProperties() {
+        return mergedProperties;
+    }
+
+    /**
+     * @return the types of the locations this file was merged from, lowest
+     *         precedence first
+     */
+    public List<String> getLocationTypes() {
+        List<String> locationTypes = new ArrayList<>(layers.size());
+        for (Layer layer : layers) {
+            locationTypes.add(layer.locationType);
+        }
+        return locationTypes;
+    }
+
+    private static final class Layer {
+
+        private final String locationType;
+        private final File file;
+        private final Map<String, String> entries;
+
+        private Layer(String locationType, File file, Map<String, String> entries) {
+            this.locationType = locationType;
+            this.file = file;
+            this.entries = entries;
+        }
+
+        private PropertyProvenance getProvenance(String key, List<PropertyProvenance> shadowedValues) {
+            String value = entries.get(key);
+            return (value != null) ? new PropertyProvenance(key, value, locationType, file, shadowedValues) : null;
+        }
+    }
+
+}
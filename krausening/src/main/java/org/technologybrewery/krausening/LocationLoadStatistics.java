@@ -0,0 +1,112 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing information for loading the .properties files of a single location
+ * (i.e., base, extensions, override) during one Krausening load.
+ */
+public final class LocationLoadStatistics {
+
+    private final String locationType;
+    private final File location;
+    private final int fileCount;
+    private final int parallelism;
+    private final long elapsedNanos;
+    private final long cumulativeParseNanos;
+    private final long bytesRead;
+    private final long keyCount;
+
+    LocationLoadStatistics(String locationType, File location, int fileCount, int parallelism, long elapsedNanos,
+            long cumulativeParseNanos, long bytesRead, long keyCount) {
+        this.locationType = locationType;
+        this.location = location;
+        this.fileCount = fileCount;
+        this.parallelism = parallelism;
+        this.elapsedNanos = elapsedNanos;
+        this.cumulativeParseNanos = cumulativeParseNanos;
+        this.bytesRead = bytesRead;
+        this.keyCount = keyCount;
+    }
+
+    /**
+     * @return the type of location (i.e., {@link Krausening#BASE_LOCATION})
+     */
+    public String getLocationType() {
+        return locationType;
+    }
+
+    /**
+     * @return the directory that was loaded
+     */
+    public File getLocation() {
+        return location;
+    }
+
+    /**
+     * @return the number of .properties files that were loaded
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * @return the number of threads used to read files (1 when loaded
+     *         sequentially)
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return wall clock time spent loading the location
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the sum of the time spent reading each individual file, which
+     *         approximates how long a sequential load would have taken
+     */
+    public long getCumulativeParseNanos() {
+        return cumulativeParseNanos;
+    }
+
+    /**
+     * @return the total size of the files that were read (0 when loading
+     *         lazily, as files are not read until requested)
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the total number of properties in the files that were read,
+     *         including properties that are overridden by other locations (0
+     *         when loading lazily)
+     */
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Returns how much faster the location loaded than reading its files one
+     * at a time would have.
+     *
+     * @return cumulative parse time divided by wall clock time
+     */
+    public double getSpeedup() {
+        return (elapsedNanos > 0) ? (double) cumulativeParseNanos / elapsedNanos : 1.0d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: %d file(s) (%d key(s), %d byte(s)) from %s in %dms using %d thread(s) (%.2fx speedup)",
+                locationType, fileCount, keyCount, bytesRead, location.getPath(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), parallelism, getSpeedup());
+    }
+
+}
@@ -0,0 +1,349 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single logical properties file within a {@link KrauseningSnapshot}, made
+ * up of every physical file of the same name across the base, extensions, and
+ * override locations. The merged contents are either supplied up front (eager
+ * loading) or read and merged the first time they are requested (lazy
+ * loading), exactly once even when requested concurrently. They are held in a
+ * compact {@link FrozenPropertyMap}; a mutable {@link Properties} copy is only
+ * created for callers that ask for one. The parsed
+ * contents of each physical file are retained so that a later refresh only
+ * needs to re-read the physical files that actually changed.
+ * <p>
+ * A file may be layered over the merged files of a {@link SharedBaseLayer}, in
+ * which case only the entries of its own (override) files are held, and every
+ * other entry is looked up in the shared merge.
+ */
+final class ManagedPropertiesFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManagedPropertiesFile.class);
+
+    private final String fileName;
+
+    /** Physical files in precedence order, lowest first. */
+    private final List<File> sourceFiles;
+
+    private final PropertiesFactory propertiesFactory;
+
+    /** Parsed shared files that {@link #baseMap} was merged from, or null if not layered. */
+    private final List<ParsedPropertiesFile> baseFiles;
+
+    /** Shared merged entries that this file's own entries are layered over, or null if not layered. */
+    private final FrozenPropertyMap baseMap;
+
+    /**
+     * Parsed physical files in precedence order, or null until the source files
+     * have been read.
+     */
+    private volatile List<ParsedPropertiesFile> parsedFiles;
+
+    /**
+     * Merged entries, or null if none of the source files could be read; only
+     * read after {@link #parsedFiles} has been set.
+     */
+    private FrozenPropertyMap propertyMap;
+
+    /** Properties copy of {@link #propertyMap}, created on first request. */
+    private volatile Properties properties;
+
+    /** Per-location view of {@link #propertyMap}, created on first request. */
+    private volatile LayeredPropertyView layeredView;
+
+    private ManagedPropertiesFile(String fileName, List<File> sourceFiles,
+            PropertiesFactory propertiesFactory) {
+        this(fileName, sourceFiles, propertiesFactory, null, null);
+    }
+
+    private ManagedPropertiesFile(String fileName, List<File> sourceFiles, PropertiesFactory propertiesFactory,
+            List<ParsedPropertiesFile> baseFiles, FrozenPropertyMap baseMap) {
+        this.fileName = fileName;
+        this.sourceFiles = Collections.unmodifiableList(new ArrayList<>(sourceFiles));
+        this.propertiesFactory = propertiesFactory;
+        this.baseFiles = baseFiles;
+        this.baseMap = baseMap;
+    }
+
+    /**
+     * Creates a file whose properties have already been read and merged.
+     *
+     * @param fileName
+     *            the file name shared by all source files
+     * @param parsedFiles
+     *            the parsed source files in precedence order, lowest first
+     * @param propertiesFactory
+     *            creates the (possibly decrypting) properties to merge into
+     * @return the managed file, or null if none of the source files could be
+     *         read
+     */
+    static ManagedPropertiesFile loaded(String fileName, List<ParsedPropertiesFile> parsedFiles,
+            PropertiesFactory propertiesFactory) {
+        List<File> sourceFiles = new ArrayList<>(parsedFiles.size());
+        for (ParsedPropertiesFile parsedFile : parsedFiles) {
+            sourceFiles.add(parsedFile.getFile());
+        }
+        ManagedPropertiesFile managedFile = new ManagedPropertiesFile(fileName, sourceFiles, propertiesFactory);
+        managedFile.resolve(parsedFiles);
+        return (managedFile.propertyMap != null) ? managedFile : null;
+    }
+
+    /**
+     * Creates a file layered over the merged files of a
+     * {@link SharedBaseLayer}, holding only the entries of its own files.
+     *
+     * @param fileName
+     *            the file name shared by all source files
+     * @param baseFiles
+     *            the parsed shared files in precedence order, lowest first
+     * @param baseMap
+     *            the merged entries of the shared files, decrypted by the
+     *            given factory's settings
+     * @param parsedFiles
+     *            the parsed files that take precedence over the shared files,
+     *            lowest first, which may be none
+     * @param propertiesFactory
+     *            creates the (possibly decrypting) map of this file's own
+     *            entries
+     * @return the managed file
+     */
+    static ManagedPropertiesFile layered(String fileName, List<ParsedPropertiesFile> baseFiles,
+            FrozenPropertyMap baseMap, List<ParsedPropertiesFile> parsedFiles, PropertiesFactory propertiesFactory) {
+        List<ParsedPropertiesFile> layeredFiles = new ArrayList<>(baseFiles.size() + parsedFiles.size());
+        layeredFiles.addAll(baseFiles);
+        layeredFiles.addAll(parsedFiles);
+        List<File> sourceFiles = new ArrayList<>(layeredFiles.size());
+        for (ParsedPropertiesFile parsedFile : layeredFiles) {
+            sourceFiles.add(parsedFile.getFile());
+        }
+        ManagedPropertiesFile managedFile = new ManagedPropertiesFile(fileName, sourceFiles, propertiesFactory,
+                baseFiles, baseMap);
+        managedFile.resolve(layeredFiles);
+        return managedFile;
+    }
+
+    /**
+     * Creates a file whose source files will only be read the first time its
+     * properties are requested.
+     *
+     * @param fileName
+     *            the file name shared by all source files
+     * @param sourceFiles
+     *            the source files in precedence order, lowest first
+     * @param propertiesFactory
+     *            creates the (possibly decrypting) properties to merge into
+     * @return the managed file
+     */
+    static ManagedPropertiesFile deferred(String fileName, List<File> sourceFiles,
+            PropertiesFactory propertiesFactory) {
+        return new ManagedPropertiesFile(fileName, sourceFiles, propertiesFactory);
+    }
+
+    /**
+     * Returns the merged entries, reading the source files first if this file
+     * was deferred.
+     *
+     * @return the merged entries, or null if none of the source files could be
+     *         read
+     */
+    FrozenPropertyMap getPropertyMap() {
+        if (parsedFiles == null) {
+            synchronized (this) {
+                if (parsedFiles == null) {
+                    List<ParsedPropertiesFile> readFiles = new ArrayList<>(sourceFiles.size());
+                    for (File sourceFile : sourceFiles) {
+                        readFiles.add(ParsedPropertiesFile.read(sourceFile));
+                    }
+                    resolve(readFiles);
+                    LOGGER.debug("Loaded {} on first access from {} file(s)", fileName, sourceFiles.size());
+                }
+            }
+        }
+        return propertyMap;
+    }
+
+    /**
+     * Returns the merged entries as {@link Properties}, reading the source
+     * files first if this file was deferred. The same instance is returned on
+     * every call.
+     *
+     * @return the merged properties, or null if none of the source files could
+     *         be read
+     */
+    Properties getProperties() {
+        Properties result = properties;
+        if (result == null) {
+            FrozenPropertyMap merged = getPropertyMap();
+            if (merged == null) {
+                return null;
+            }
+            synchronized (this) {
+                result = properties;
+                if (result == null) {
+                    result = propertiesFactory.newProperties();
+                    merged.copyRawEntriesTo(result);
+                    properties = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the merged entries along with the contents of each location they
+     * were merged from, reading the source files first if this file was
+     * deferred.
+     *
+     * @param locations
+     *            the directories of the snapshot, keyed by location type
+     * @return the layered view, or null if none of the source files could be
+     *         read
+     */
+    LayeredPropertyView getLayeredView(Map<String, File> locations) {
+        LayeredPropertyView result = layeredView;
+        if (result == null) {
+            FrozenPropertyMap merged = getPropertyMap();
+            if (merged == null) {
+                return null;
+            }
+            synchronized (this) {
+                result = layeredView;
+                if (result == null) {
+                    result = new LayeredPropertyView(merged, parsedFiles, locations);
+                    layeredView = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns an up-to-date version of this file for the given physical files,
+     * re-reading only those that changed. If nothing changed, this instance is
+     * returned as-is.
+     *
+     * @param currentSourceFiles
+     *            the physical files that currently exist, in precedence order
+     * @param changedFiles
+     *            physical files known to have changed, which are re-read
+     *            regardless of their modification time and size
+     * @return the refreshed file, or null if none of the source files could be
+     *         read
+     */
+    ManagedPropertiesFile refresh(List<File> currentSourceFiles, Set<File> changedFiles) {
+        List<ParsedPropertiesFile> previouslyParsedFiles = parsedFiles;
+        if (previouslyParsedFiles == null) {
+            // never read, so there is nothing to reuse and nothing to re-read yet
+            return sourceFiles.equals(currentSourceFiles) ? this
+                    : deferred(fileName, currentSourceFiles, propertiesFactory);
+        }
+
+        boolean changed = !sourceFiles.equals(currentSourceFiles);
+        List<ParsedPropertiesFile> refreshedFiles = new ArrayList<>(currentSourceFiles.size());
+        for (File sourceFile : currentSourceFiles) {
+            ParsedPropertiesFile refreshedFile = null;
+            if (!changedFiles.contains(sourceFile)) {
+                for (ParsedPropertiesFile previouslyParsedFile : previouslyParsedFiles) {
+                    if (previouslyParsedFile.getFile().equals(sourceFile)
+                            && previouslyParsedFile.isUnchangedOnDisk()) {
+                        refreshedFile = previouslyParsedFile;
+                        break;
+                    }
+                }
+            }
+            if (refreshedFile == null) {
+                refreshedFile = ParsedPropertiesFile.read(sourceFile);
+                changed = true;
+            }
+            refreshedFiles.add(refreshedFile);
+        }
+
+        if (!changed) {
+            return this;
+        }
+        // stay layered over the shared files unless one of them changed
+        boolean layered = (baseMap != null) && startsWith(refreshedFiles, baseFiles);
+        ManagedPropertiesFile refreshed = new ManagedPropertiesFile(fileName, currentSourceFiles, propertiesFactory,
+                layered ? baseFiles : null, layered ? baseMap : null);
+        refreshed.resolve(refreshedFiles);
+        return (refreshed.propertyMap != null) ? refreshed : null;
+    }
+
+    private static boolean startsWith(List<ParsedPropertiesFile> files, List<ParsedPropertiesFile> prefix) {
+        if (files.size() < prefix.size()) {
+            return false;
+        }
+        for (int index = 0; index < prefix.size(); index++) {
+            if (files.get(index) != prefix.get(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether this file reflects the given physical files as they are
+     * currently on disk.
+     *
+     * @param currentSourceFiles
+     *            the physical files that currently exist, in precedence order
+     * @return true if the physical files and their contents are unchanged
+     */
+    boolean isCurrent(List<File> currentSourceFiles) {
+        if (!sourceFiles.equals(currentSourceFiles)) {
+            return false;
+        }
+        List<ParsedPropertiesFile> previouslyParsedFiles = parsedFiles;
+        if (previouslyParsedFiles != null) {
+            for (ParsedPropertiesFile parsedFile : previouslyParsedFiles) {
+                if (!parsedFile.isUnchangedOnDisk()) {
+                    return false;
+                }
+            }
+        }
+        // a deferred file will be read as it is on disk
+        return true;
+    }
+
+    private void resolve(List<ParsedPropertiesFile> readFiles) {
+        Map<String, String> merged = null;
+        boolean shared = false;
+        // the entries of the shared files are already merged into the base map
+        List<ParsedPropertiesFile> ownFiles = (baseMap != null) ? readFiles.subList(baseFiles.size(), readFiles.size())
+                : readFiles;
+        for (ParsedPropertiesFile parsedFile : ownFiles) {
+            Map<String, String> entries = parsedFile.getEntries();
+            if (entries != null) {
+                if (merged == null) {
+                    // a file found in only one location needs no merge copy
+                    merged = entries;
+                    shared = true;
+                } else {
+                    if (shared) {
+                        merged = new HashMap<>(merged);
+                        shared = false;
+                    }
+                    merged.putAll(entries);
+                }
+            }
+        }
+        if (baseMap != null) {
+            propertyMap = (merged != null) ? propertiesFactory.layer(merged, baseMap) : baseMap;
+        } else {
+            propertyMap = (merged != null) ? propertiesFactory.freeze(merged) : null;
+        }
+        parsedFiles = Collections.unmodifiableList(readFiles);
+    }
+
+}
@@ -0,0 +1,178 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The contents of a single .properties file from one location, as read from
+ * disk. Files are parsed as UTF-8 by {@link PropertiesFileParser}; files that
+ * are not valid UTF-8 are read with the platform default charset through
+ * {@link Properties#load(Reader)}, as they always have been.
+ */
+final class ParsedPropertiesFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParsedPropertiesFile.class);
+
+    private final File file;
+
+    /** The parsed entries, or null if the file could not be read. */
+    private final Map<String, String> entries;
+
+    private final long parseNanos;
+
+    /** Modification time and size of the file when it was read. */
+    private final long lastModified;
+    private final long length;
+
+    /** CRC-32C of the file's content. */
+    private final int checksum;
+
+    private ParsedPropertiesFile(File file, Map<String, String> entries, long parseNanos, long lastModified,
+            long length, int checksum) {
+        this.file = file;
+        this.entries = entries;
+        this.parseNanos = parseNanos;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Recreates a file that was read earlier, such as one restored from a
+     * {@link KrauseningSnapshotCache}.
+     *
+     * @param file
+     *            the .properties file
+     * @param entries
+     *            its entries
+     * @param restoreNanos
+     *            time spent restoring the entries
+     * @param lastModified
+     *            modification time of the file the entries were read from
+     * @param length
+     *            size of the file the entries were read from
+     * @param checksum
+     *            CRC-32C of the content the entries were read from
+     * @return the file
+     */
+    static ParsedPropertiesFile restore(File file, Map<String, String> entries, long restoreNanos, long lastModified,
+            long length, int checksum) {
+        return new ParsedPropertiesFile(file, entries, restoreNanos, lastModified, length, checksum);
+    }
+
+    /**
+     * Reads and parses the given file. Failures are logged rather than thrown
+     * so that one unreadable file does not prevent the rest from loading.
+     *
+     * @param file
+     *            the .properties file to read
+     * @return the parsed file
+     */
+    static ParsedPropertiesFile read(File file) {
+        long start = System.nanoTime();
+        // stat before reading, so a change made mid-read is seen as a change later
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Map<String, String> entries;
+        CRC32C checksum = new CRC32C();
+        try {
+            entries = PropertiesFileParser.read(file, checksum);
+
+        } catch (CharacterCodingException e) {
+            LOGGER.debug("{} is not UTF-8, reading it with the default charset", file.getAbsolutePath());
+            entries = readWithDefaultCharset(file);
+
+        } catch (IOException e) {
+            LOGGER.error("Could not read the file: " + file.getAbsolutePath(), e);
+            entries = null;
+
+        }
+        ParsedPropertiesFile parsedFile = new ParsedPropertiesFile(file, entries, System.nanoTime() - start,
+                lastModified, length, (int) checksum.getValue());
+        if (entries != null && KrauseningMetrics.isEnabled()) {
+            KrauseningMetrics.fileParsed(file, length, entries.size(), parsedFile.parseNanos);
+        }
+        return parsedFile;
+    }
+
+    private static Map<String, String> readWithDefaultCharset(File file) {
+        Properties properties = new Properties();
+        try (Reader fileReader = new FileReader(file)) {
+            properties.load(fileReader);
+
+        } catch (IOException e) {
+            LOGGER.error("Could not read the file: " + file.getAbsolutePath(), e);
+            return null;
+
+        }
+        Map<String, String> entries = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            entries.put(name, properties.getProperty(name));
+        }
+        return entries;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the parsed entries, or null if the file could not be read
+     */
+    Map<String, String> getEntries() {
+        return entries;
+    }
+
+    long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * @return size of the file when it was read
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * @return modification time of the file when it was read
+     */
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return CRC-32C of the file's content when it was read
+     */
+    int getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return number of parsed entries, or 0 if the file could not be read
+     */
+    int getKeyCount() {
+        return (entries != null) ? entries.size() : 0;
+    }
+
+    /**
+     * Returns whether the file on disk still has the modification time and
+     * size it had when it was read.
+     *
+     * @return true if the file appears unchanged
+     */
+    boolean isUnchangedOnDisk() {
+        return file.lastModified() == lastModified && file.length() == length;
+    }
+
+}
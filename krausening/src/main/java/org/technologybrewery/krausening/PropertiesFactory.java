@@ -0,0 +1,70 @@
+package org.technologybrewery.krausening;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Creates the maps that the merged contents of each managed file are held in,
+ * decrypting or not based on whether a master password was set when they were
+ * loaded. A factory captures the encryption settings of one load, so files
+ * that are read lazily or refreshed later are decrypted the same way as the
+ * rest of their snapshot.
+ */
+final class PropertiesFactory {
+
+    /** Factory for loads without a master password. */
+    static final PropertiesFactory PLAIN = new PropertiesFactory(null);
+
+    /** Decrypts ENC(...) values, or null if values are not encrypted. */
+    private final PropertyValueDecryptor decryptor;
+
+    /**
+     * @param decryptor
+     *            decrypts ENC(...) values, or null if values are not encrypted
+     */
+    PropertiesFactory(PropertyValueDecryptor decryptor) {
+        this.decryptor = decryptor;
+    }
+
+    /**
+     * @return new, empty properties that decrypt values as they are read if
+     *         needed
+     */
+    Properties newProperties() {
+        return (decryptor != null) ? new DecryptingProperties(decryptor) : new Properties();
+    }
+
+    /**
+     * @param entries
+     *            merged entries of a managed file
+     * @return immutable copy of the entries that decrypts values as they are
+     *         read if needed
+     */
+    FrozenPropertyMap freeze(Map<?, ?> entries) {
+        return FrozenPropertyMap.copyOf(entries, decryptor);
+    }
+
+    /**
+     * @param frozen
+     *            entries frozen for another factory, some of which are
+     *            encrypted
+     * @return the same entries, without copying them, decrypted as they are
+     *         read by this factory's decryptor if needed
+     */
+    FrozenPropertyMap share(FrozenPropertyMap frozen) {
+        return frozen.withDecryptor(decryptor);
+    }
+
+    /**
+     * @param overrides
+     *            entries of a managed file that take precedence over the base
+     * @param base
+     *            the entries that are not overridden, already shared with this
+     *            factory
+     * @return immutable copy of only the overrides, layered over the base
+     */
+    FrozenPropertyMap layer(Map<?, ?> overrides, FrozenPropertyMap base) {
+        return FrozenPropertyMap.layer(overrides, decryptor, base);
+    }
+
+}
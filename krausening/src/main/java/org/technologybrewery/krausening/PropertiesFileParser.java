@@ -0,0 +1,334 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.Checksum;
+
+/**
+ * Reads .properties files directly into a map of names to values, without the
+ * per-character {@link java.io.Reader} overhead and intermediate
+ * {@link Properties} copy of {@link Properties#load(java.io.Reader)}. The whole
+ * file is read through a {@link FileChannel} and decoded as UTF-8 in bulk, and
+ * names and values that contain no escapes are created straight from the
+ * decoded characters.
+ *
+ * The grammar is exactly that of {@link Properties#load(java.io.Reader)}: line
+ * terminators, comments, line continuations, escapes (including \\uXXXX), and
+ * '=', ':', or whitespace separators all behave identically.
+ */
+final class PropertiesFileParser {
+
+    private PropertiesFileParser() {
+    }
+
+    /**
+     * Reads and parses the given file as UTF-8.
+     *
+     * @param file
+     *            the .properties file to read
+     * @return the file's entries, keyed by property name
+     * @throws CharacterCodingException
+     *             if the file is not valid UTF-8
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws IllegalArgumentException
+     *             if the file contains a malformed \\uXXXX escape
+     */
+    static Map<String, String> read(File file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Reads and parses the given file as UTF-8, updating the given checksum
+     * with the file's content as it is read.
+     *
+     * @param file
+     *            the .properties file to read
+     * @param checksum
+     *            updated with the raw bytes of the file (even if they turn out
+     *            not to be UTF-8), or null
+     * @return the file's entries, keyed by property name
+     * @throws CharacterCodingException
+     *             if the file is not valid UTF-8
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws IllegalArgumentException
+     *             if the file contains a malformed \\uXXXX escape
+     */
+    static Map<String, String> read(File file, Checksum checksum) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to parse: " + file.getAbsolutePath());
+            }
+            bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            bytes.flip();
+        }
+        if (checksum != null) {
+            checksum.update(bytes.duplicate());
+        }
+
+        CharBuffer chars = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT).decode(bytes);
+        return parse(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+    }
+
+    /**
+     * Parses decoded .properties content.
+     *
+     * @param in
+     *            buffer holding the content
+     * @param offset
+     *            index of the first character of the content
+     * @param length
+     *            number of characters of content
+     * @return the entries, keyed by property name
+     * @throws IllegalArgumentException
+     *             if the content contains a malformed \\uXXXX escape
+     */
+    static Map<String, String> parse(char[] in, int offset, int length) {
+        Map<String, String> entries = new HashMap<>();
+        LineReader lineReader = new LineReader(in, offset, offset + length);
+        StringBuilder outBuffer = new StringBuilder();
+        int limit;
+        while ((limit = lineReader.readLine()) >= 0) {
+            char[] line = lineReader.line;
+            int start = lineReader.lineStart;
+            int end = start + limit;
+            int keyEnd = start;
+            int valueStart = end;
+            boolean hasSeparator = false;
+            boolean precedingBackslash = false;
+            while (keyEnd < end) {
+                char c = line[keyEnd];
+                if ((c == '=' || c == ':') && !precedingBackslash) {
+                    valueStart = keyEnd + 1;
+                    hasSeparator = true;
+                    break;
+                } else if ((c == ' ' || c == '\t' || c == '\f') && !precedingBackslash) {
+                    valueStart = keyEnd + 1;
+                    break;
+                }
+                precedingBackslash = (c == '\\') ? !precedingBackslash : false;
+                keyEnd++;
+            }
+            while (valueStart < end) {
+                char c = line[valueStart];
+                if (c != ' ' && c != '\t' && c != '\f') {
+                    if (!hasSeparator && (c == '=' || c == ':')) {
+                        hasSeparator = true;
+                    } else {
+                        break;
+                    }
+                }
+                valueStart++;
+            }
+            String key = convert(line, start, keyEnd, outBuffer);
+            String value = convert(line, valueStart, end, outBuffer);
+            entries.put(key, value);
+        }
+        return entries;
+    }
+
+    /**
+     * Resolves escapes within the given range, copying characters straight
+     * into a new string when there are none.
+     */
+    private static String convert(char[] in, int start, int end, StringBuilder out) {
+        int offset = start;
+        while (offset < end) {
+            if (in[offset++] == '\\') {
+                break;
+            }
+        }
+        if (offset == end) {
+            return new String(in, start, end - start);
+        }
+
+        out.setLength(0);
+        offset--;
+        out.append(in, start, offset - start);
+        while (offset < end) {
+            char c = in[offset++];
+            if (c == '\\') {
+                // the line reader never leaves an unescaped backslash at the end of a line
+                c = in[offset++];
+                if (c == 'u') {
+                    if (offset > end - 4) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        value = (value << 4) + hexDigit(in[offset++]);
+                    }
+                    out.append((char) value);
+                } else {
+                    if (c == 't') {
+                        c = '\t';
+                    } else if (c == 'r') {
+                        c = '\r';
+                    } else if (c == 'n') {
+                        c = '\n';
+                    } else if (c == 'f') {
+                        c = '\f';
+                    }
+                    out.append(c);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+    }
+
+    /**
+     * Splits content into logical lines, skipping blank lines and comments and
+     * joining continued lines. A logical line that is not continued is
+     * returned as a range of the content itself; only continued lines are
+     * copied into a separate buffer.
+     */
+    private static final class LineReader {
+
+        private final char[] in;
+        private final int end;
+        private int position;
+
+        /** Buffer holding the current line: either the content or a copy. */
+        private char[] line;
+        private int lineStart;
+
+        private char[] lineBuffer = new char[256];
+
+        private LineReader(char[] in, int offset, int end) {
+            this.in = in;
+            this.position = offset;
+            this.end = end;
+        }
+
+        /**
+         * Advances to the next logical line.
+         *
+         * @return the length of the line, starting at {@link #lineStart}
+         *         within {@link #line}, or -1 at the end of the content
+         */
+        private int readLine() {
+            int length = 0;
+            boolean copying = false;
+            boolean skipWhiteSpace = true;
+            boolean appendedLineBegin = false;
+            boolean precedingBackslash = false;
+            line = in;
+            lineStart = position;
+
+            while (true) {
+                if (position >= end) {
+                    if (length == 0) {
+                        return -1;
+                    }
+                    return precedingBackslash ? length - 1 : length;
+                }
+
+                char c = in[position++];
+
+                if (skipWhiteSpace) {
+                    if (c == ' ' || c == '\t' || c == '\f') {
+                        continue;
+                    }
+                    if (!appendedLineBegin && (c == '\r' || c == '\n')) {
+                        continue;
+                    }
+                    skipWhiteSpace = false;
+                    appendedLineBegin = false;
+                }
+
+                if (length == 0) {
+                    if (c == '#' || c == '!') {
+                        // comment, skip the rest of the natural line
+                        while (position < end && in[position] != '\r' && in[position] != '\n') {
+                            position++;
+                        }
+                        if (position >= end) {
+                            return -1;
+                        }
+                        position++;
+                        skipWhiteSpace = true;
+                        continue;
+                    }
+                    if (!copying) {
+                        lineStart = position - 1;
+                    }
+                }
+
+                if (c != '\n' && c != '\r') {
+                    if (copying) {
+                        if (length == lineBuffer.length) {
+                            char[] grown = new char[lineBuffer.length << 1];
+                            System.arraycopy(lineBuffer, 0, grown, 0, length);
+                            lineBuffer = grown;
+                            line = grown;
+                        }
+                        lineBuffer[length] = c;
+                    }
+                    length++;
+                    precedingBackslash = (c == '\\') ? !precedingBackslash : false;
+                } else {
+                    if (length == 0) {
+                        skipWhiteSpace = true;
+                        continue;
+                    }
+                    if (position >= end) {
+                        return precedingBackslash ? length - 1 : length;
+                    }
+                    if (precedingBackslash) {
+                        // the backslash is not part of the line
+                        length -= 1;
+                        if (!copying) {
+                            // the line continues elsewhere in the content, so it must be copied
+                            if (length > lineBuffer.length) {
+                                lineBuffer = new char[Math.max(length, lineBuffer.length << 1)];
+                            }
+                            System.arraycopy(in, lineStart, lineBuffer, 0, length);
+                            line = lineBuffer;
+                            lineStart = 0;
+                            copying = true;
+                        }
+                        skipWhiteSpace = true;
+                        appendedLineBegin = true;
+                        precedingBackslash = false;
+                        if (c == '\r' && in[position] == '\n') {
+                            position++;
+                        }
+                    } else {
+                        return length;
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.technologybrewery.krausening;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tells {@link PropertyChangeSubscriber}s which of their properties changed
+ * whenever a {@link Krausening} instance publishes a new snapshot. Snapshots
+ * are immutable, so the differences are computed on the notification executor
+ * rather than by the thread that loaded them, and a file that a refresh did
+ * not touch is recognized by identity without being compared. Subscriptions
+ * are held in an array that is replaced whenever one is added or removed, so
+ * publishing a snapshot costs a single volatile read while there are none.
+ */
+final class PropertyChangeNotifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertyChangeNotifier.class);
+
+    private static final PropertyChangeSubscription[] NO_SUBSCRIPTIONS = new PropertyChangeSubscription[0];
+
+    private volatile PropertyChangeSubscription[] subscriptions = NO_SUBSCRIPTIONS;
+
+    /** Executor set by the application, or null to use {@link #defaultExecutor}. */
+    private volatile Executor executor;
+
+    /** Single thread, so notifications are delivered in snapshot order; created on first use. */
+    private ExecutorService defaultExecutor;
+
+    /**
+     * Registers a subscriber.
+     * 
+     * @param propertiesFileName
+     *            the file to watch
+     * @param keyFilter
+     *            selects the properties of the file to watch
+     * @param subscriber
+     *            notified of changes to the selected properties
+     * @return the subscription
+     */
+    synchronized PropertyChangeSubscription subscribe(String propertiesFileName, Predicate<String> keyFilter,
+            PropertyChangeSubscriber subscriber) {
+        PropertyChangeSubscription subscription = new PropertyChangeSubscription(this, propertiesFileName,
+                keyFilter, subscriber);
+        PropertyChangeSubscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        updated[subscriptions.length] = subscription;
+        subscriptions = updated;
+        return subscription;
+    }
+
+    synchronized void unsubscribe(PropertyChangeSubscription subscription) {
+        List<PropertyChangeSubscription> updated = new ArrayList<>(Arrays.asList(subscriptions));
+        if (updated.remove(subscription)) {
+            subscriptions = updated.toArray(NO_SUBSCRIPTIONS);
+        }
+    }
+
+    /**
+     * @param executor
+     *            executor to deliver notifications on, or null to use a
+     *            single daemon thread
+     */
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Notifies subscribers of the differences between two snapshots, if there
+     * are any subscribers.
+     * 
+     * @param previous
+     *            the snapshot that was replaced
+     * @param current
+     *            the snapshot that replaced it
+     */
+    void snapshotPublished(KrauseningSnapshot previous, KrauseningSnapshot current) {
+        final PropertyChangeSubscription[] currentSubscriptions = subscriptions;
+        if (currentSubscriptions.length == 0 || previous == current) {
+            return;
+        }
+        try {
+            getExecutor().execute(() -> notifySubscribers(previous, current, currentSubscriptions));
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Could not deliver Krausening property change notifications for version {}",
+                    current.getVersion(), e);
+        }
+    }
+
+    private Executor getExecutor() {
+        Executor configuredExecutor = executor;
+        if (configuredExecutor != null) {
+            return configuredExecutor;
+        }
+        synchronized (this) {
+            if (defaultExecutor == null) {
+                defaultExecutor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "krausening-change-notifier");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return defaultExecutor;
+        }
+    }
+
+    private static void notifySubscribers(KrauseningSnapshot previous, KrauseningSnapshot current,
+            PropertyChangeSubscription[] currentSubscriptions) {
+        Map<String, List<PropertyChangeSubscription>> subscriptionsByFile = new LinkedHashMap<>();
+        for (PropertyChangeSubscription subscription : currentSubscriptions) {
+            subscriptionsByFile.computeIfAbsent(subscription.getPropertiesFileName(), fileName -> new ArrayList<>())
+                    .add(subscription);
+        }
+
+        for (Map.Entry<String, List<PropertyChangeSubscription>> entry : subscriptionsByFile.entrySet()) {
+            String fileName = entry.getKey();
+            ManagedPropertiesFile previousFile = previous.getManagedFile(fileName);
+            ManagedPropertiesFile currentFile = current.getManagedFile(fileName);
+            if (previousFile == currentFile) {
+                continue;
+            }
+            PropertyChanges changes = PropertyChanges.between(fileName, previous.getVersion(),
+                    (previousFile != null) ? previousFile.getPropertyMap() : null, current.getVersion(),
+                    (currentFile != null) ? currentFile.getPropertyMap() : null);
+            if (changes.isEmpty()) {
+                continue;
+            }
+
+            for (PropertyChangeSubscription subscription : entry.getValue()) {
+                PropertyChanges subscribedChanges = changes.filter(subscription.getKeyFilter());
+                if (!subscribedChanges.isEmpty() && subscription.isActive()) {
+                    try {
+                        subscription.getSubscriber().propertiesChanged(subscribedChanges);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Property change subscriber for {} failed", fileName, e);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.technologybrewery.krausening;
+
+/**
+ * Receives the properties of a file that changed when {@link Krausening}
+ * reloads. See {@link Krausening#subscribe(String, PropertyChangeSubscriber)}.
+ */
+@FunctionalInterface
+public interface PropertyChangeSubscriber {
+
+    /**
+     * Called on the change notification executor after a reload changed at
+     * least one of the subscribed properties.
+     * 
+     * @param changes
+     *            the subscribed properties that were added, removed, or
+     *            changed
+     */
+    void propertiesChanged(PropertyChanges changes);
+
+}
@@ -0,0 +1,59 @@
+package org.technologybrewery.krausening;
+
+import java.util.function.Predicate;
+
+/**
+ * A registration of a {@link PropertyChangeSubscriber} for some or all of the
+ * properties of a file, returned by
+ * {@link Krausening#subscribe(String, PropertyChangeSubscriber)} and its
+ * variants.
+ */
+public final class PropertyChangeSubscription {
+
+    private final PropertyChangeNotifier notifier;
+    private final String propertiesFileName;
+    private final Predicate<String> keyFilter;
+    private final PropertyChangeSubscriber subscriber;
+
+    private volatile boolean active = true;
+
+    PropertyChangeSubscription(PropertyChangeNotifier notifier, String propertiesFileName,
+            Predicate<String> keyFilter, PropertyChangeSubscriber subscriber) {
+        this.notifier = notifier;
+        this.propertiesFileName = propertiesFileName;
+        this.keyFilter = keyFilter;
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * Stops notifying the subscriber. A notification that is already being
+     * delivered may still complete.
+     */
+    public void cancel() {
+        active = false;
+        notifier.unsubscribe(this);
+    }
+
+    /**
+     * @return whether the subscriber is still notified of changes
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * @return the subscribed file
+     */
+    public String getPropertiesFileName() {
+        return propertiesFileName;
+    }
+
+    Predicate<String> getKeyFilter() {
+        return keyFilter;
+    }
+
+    PropertyChangeSubscriber getSubscriber() {
+        return subscriber;
+    }
+
+}
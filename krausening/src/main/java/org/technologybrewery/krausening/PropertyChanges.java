@@ -0,0 +1,159 @@
+package org.technologybrewery.krausening;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * The properties of a single file that were added, removed, or changed
+ * between two versions of the properties loaded by {@link Krausening}. Only
+ * property names are reported; current values can be read from
+ * {@link Krausening} as usual. Values are compared as they are written, so
+ * re-encrypting a value with the same plaintext is reported as a change.
+ */
+public final class PropertyChanges {
+
+    private final String propertiesFileName;
+    private final long previousVersion;
+    private final long version;
+    private final SortedSet<String> addedKeys;
+    private final SortedSet<String> removedKeys;
+    private final SortedSet<String> changedKeys;
+
+    private PropertyChanges(String propertiesFileName, long previousVersion, long version,
+            SortedSet<String> addedKeys, SortedSet<String> removedKeys, SortedSet<String> changedKeys) {
+        this.propertiesFileName = propertiesFileName;
+        this.previousVersion = previousVersion;
+        this.version = version;
+        this.addedKeys = Collections.unmodifiableSortedSet(addedKeys);
+        this.removedKeys = Collections.unmodifiableSortedSet(removedKeys);
+        this.changedKeys = Collections.unmodifiableSortedSet(changedKeys);
+    }
+
+    /**
+     * Compares two versions of a file.
+     * 
+     * @param propertiesFileName
+     *            the file name
+     * @param previousVersion
+     *            version of the snapshot the previous properties are from
+     * @param previous
+     *            the previous properties, or null if the file did not exist
+     * @param version
+     *            version of the snapshot the current properties are from
+     * @param current
+     *            the current properties, or null if the file no longer exists
+     * @return the differences, which may be empty
+     */
+    static PropertyChanges between(String propertiesFileName, long previousVersion, FrozenPropertyMap previous,
+            long version, FrozenPropertyMap current) {
+        SortedSet<String> added = new TreeSet<>();
+        SortedSet<String> removed = new TreeSet<>();
+        SortedSet<String> changed = new TreeSet<>();
+        if (current != null) {
+            current.forEachRaw((key, value) -> {
+                String previousValue = (previous != null) ? previous.getRaw(key) : null;
+                if (previousValue == null) {
+                    added.add(key);
+                } else if (!previousValue.equals(value)) {
+                    changed.add(key);
+                }
+            });
+        }
+        if (previous != null) {
+            previous.forEachRaw((key, value) -> {
+                if (current == null || !current.containsKey(key)) {
+                    removed.add(key);
+                }
+            });
+        }
+        return new PropertyChanges(propertiesFileName, previousVersion, version, added, removed, changed);
+    }
+
+    /**
+     * @param keyFilter
+     *            selects the property names of interest
+     * @return the changes to the selected properties
+     */
+    PropertyChanges filter(Predicate<String> keyFilter) {
+        return new PropertyChanges(propertiesFileName, previousVersion, version, filter(addedKeys, keyFilter),
+                filter(removedKeys, keyFilter), filter(changedKeys, keyFilter));
+    }
+
+    private static SortedSet<String> filter(SortedSet<String> keys, Predicate<String> keyFilter) {
+        SortedSet<String> filtered = new TreeSet<>();
+        for (String key : keys) {
+            if (keyFilter.test(key)) {
+                filtered.add(key);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * @return the file the properties belong to
+     */
+    public String getPropertiesFileName() {
+        return propertiesFileName;
+    }
+
+    /**
+     * @return the snapshot version (see {@link Krausening#getSnapshotVersion()})
+     *         before the change
+     */
+    public long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    /**
+     * @return the snapshot version that contains the change
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return names of properties that were not set before
+     */
+    public SortedSet<String> getAddedKeys() {
+        return addedKeys;
+    }
+
+    /**
+     * @return names of properties that are no longer set
+     */
+    public SortedSet<String> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    /**
+     * @return names of properties whose values changed
+     */
+    public SortedSet<String> getChangedKeys() {
+        return changedKeys;
+    }
+
+    /**
+     * @param key
+     *            a property name
+     * @return whether the property was added, removed, or changed
+     */
+    public boolean affects(String key) {
+        return addedKeys.contains(key) || removedKeys.contains(key) || changedKeys.contains(key);
+    }
+
+    /**
+     * @return whether no properties were added, removed, or changed
+     */
+    public boolean isEmpty() {
+        return addedKeys.isEmpty() && removedKeys.isEmpty() && changedKeys.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (version %d -> %d): added %s, removed %s, changed %s", propertiesFileName,
+                previousVersion, version, addedKeys, removedKeys, changedKeys);
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes where the value of a property came from: the location (i.e.,
+ * base, extensions, override) and physical file that set the winning value,
+ * and the values it shadows from lower precedence locations. Values are
+ * reported exactly as written in their files, so encrypted values remain in
+ * their ENC(...) form.
+ */
+public final class PropertyProvenance {
+
+    private final String key;
+    private final String value;
+    private final String locationType;
+    private final File sourceFile;
+    private final List<PropertyProvenance> shadowedValues;
+
+    PropertyProvenance(String key, String value, String locationType, File sourceFile,
+            List<PropertyProvenance> shadowedValues) {
+        this.key = key;
+        this.value = value;
+        this.locationType = locationType;
+        this.sourceFile = sourceFile;
+        this.shadowedValues = Collections.unmodifiableList(shadowedValues);
+    }
+
+    /**
+     * @return the property name
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the value as written in {@link #getSourceFile()}
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the type of location that set the value (i.e.,
+     *         {@link Krausening#EXTENSIONS_LOCATION})
+     */
+    public String getLocationType() {
+        return locationType;
+    }
+
+    /**
+     * @return the physical file that set the value
+     */
+    public File getSourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * @return the values this one overrides, highest precedence first; empty
+     *         if no lower precedence location sets the property
+     */
+    public List<PropertyProvenance> getShadowedValues() {
+        return shadowedValues;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(key).append('=').append(value).append(" from ").append(locationType).append(" (")
+                .append(sourceFile.getPath()).append(')');
+        for (PropertyProvenance shadowedValue : shadowedValues) {
+            result.append(", shadowing ").append(shadowedValue.getValue()).append(" from ")
+                    .append(shadowedValue.getLocationType()).append(" (")
+                    .append(shadowedValue.getSourceFile().getPath()).append(')');
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.technologybrewery.krausening;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+
+/**
+ * Decrypts ENC(...) property values for a single Krausening load. Decrypted
+ * values can optionally be memoized in a cache that is shared by all files of
+ * the load, so each encrypted value only pays for key derivation once per load
+ * rather than once per read. The cache is keyed by the encrypted value itself,
+ * so updates to the underlying properties never return stale plaintext.
+ */
+final class PropertyValueDecryptor {
+
+    private final StringEncryptor encryptor;
+
+    /** Encrypted value to decrypted value, or null if caching is disabled. */
+    private final ConcurrentMap<String, String> decryptedValueCache;
+
+    /**
+     * @param encryptor
+     *            the encryptor used to decrypt ENC(...) values
+     * @param decryptedValueCache
+     *            cache of previously decrypted values, or null to decrypt on
+     *            every read
+     */
+    PropertyValueDecryptor(StringEncryptor encryptor, ConcurrentMap<String, String> decryptedValueCache) {
+        this.encryptor = encryptor;
+        this.decryptedValueCache = decryptedValueCache;
+    }
+
+    /**
+     * @param value
+     *            a property value, possibly null
+     * @return whether the value is an ENC(...) value
+     */
+    boolean isEncrypted(String value) {
+        return PropertyValueEncryptionUtils.isEncryptedValue(value);
+    }
+
+    /**
+     * @param value
+     *            a property value, possibly null
+     * @return the decrypted value, or the value as-is if it is not encrypted
+     */
+    String decrypt(String value) {
+        if (!isEncrypted(value)) {
+            return value;
+        }
+        if (decryptedValueCache == null) {
+            return decryptValue(value);
+        }
+        String decryptedValue = decryptedValueCache.get(value);
+        if (decryptedValue == null) {
+            decryptedValue = decryptValue(value);
+            String racingValue = decryptedValueCache.putIfAbsent(value, decryptedValue);
+            if (racingValue != null) {
+                decryptedValue = racingValue;
+            }
+        }
+        return decryptedValue;
+    }
+
+    private String decryptValue(String value) {
+        if (!KrauseningMetrics.isEnabled()) {
+            return PropertyValueEncryptionUtils.decrypt(value, encryptor);
+        }
+        long start = System.nanoTime();
+        String decryptedValue = PropertyValueEncryptionUtils.decrypt(value, encryptor);
+        KrauseningMetrics.valueDecrypted(System.nanoTime() - start);
+        return decryptedValue;
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.technologybrewery.krausening;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collapses reload requests from many consumers of a single {@link Krausening}
+ * instance (e.g., every hot reloading {@code KrauseningConfig} proxy) into as
+ * few loads from disk as possible. A request is satisfied without loading
+ * again when a load started after the request was made, since that load
+ * already reflects whatever prompted the request. Requests triggered by a
+ * detected file change are also satisfied when the current properties already
+ * reflect the files as they are on disk, so a single edit results in a single
+ * load no matter how many consumers notice it.
+ */
+public final class ReloadCoordinator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReloadCoordinator.class);
+
+    private final Krausening krausening;
+
+    private final AtomicLong reloadsRequested = new AtomicLong();
+    private final AtomicLong reloadsPerformed = new AtomicLong();
+    private final AtomicLong reloadsCoalesced = new AtomicLong();
+
+    ReloadCoordinator(Krausening krausening) {
+        this.krausening = krausening;
+    }
+
+    /**
+     * Reloads all properties, unless a load that started after this request
+     * was made has already done so.
+     */
+    public void reload() {
+        long loadsStartedAtRequest = krausening.getLoadsStarted();
+        reloadsRequested.incrementAndGet();
+        synchronized (krausening) {
+            if (krausening.getLoadsStarted() != loadsStartedAtRequest) {
+                coalesce();
+            } else {
+                perform();
+            }
+        }
+    }
+
+    /**
+     * Reloads all properties because the given files may have changed, unless
+     * a load that started after this request was made has already done so, or
+     * the currently loaded properties already reflect those files as they are
+     * on disk.
+     *
+     * @param propertiesFileNames
+     *            the files that may have changed
+     */
+    public void reloadIfChanged(Collection<String> propertiesFileNames) {
+        long loadsStartedAtRequest = krausening.getLoadsStarted();
+        reloadsRequested.incrementAndGet();
+        synchronized (krausening) {
+            if (krausening.getLoadsStarted() != loadsStartedAtRequest
+                    || krausening.isCurrent(propertiesFileNames)) {
+                coalesce();
+            } else {
+                perform();
+            }
+        }
+    }
+
+    private void coalesce() {
+        reloadsCoalesced.incrementAndGet();
+        if (KrauseningMetrics.isEnabled()) {
+            KrauseningMetrics.reloadCoalesced();
+        }
+        LOGGER.debug("Reload request satisfied by the current Krausening properties (version {})",
+                krausening.getSnapshotVersion());
+    }
+
+    private void perform() {
+        krausening.loadProperties(true);
+        reloadsPerformed.incrementAndGet();
+    }
+
+    /**
+     * @return the number of reloads requested through this coordinator
+     */
+    public long getReloadsRequested() {
+        return reloadsRequested.get();
+    }
+
+    /**
+     * @return the number of requested reloads that loaded properties from
+     *         disk
+     */
+    public long getReloadsPerformed() {
+        return reloadsPerformed.get();
+    }
+
+    /**
+     * @return the number of requested reloads that were satisfied without
+     *         loading properties again
+     */
+    public long getReloadsCoalesced() {
+        return reloadsCoalesced.get();
+    }
+
+}
@@ -0,0 +1,195 @@
+package org.technologybrewery.krausening;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+
+/**
+ * The parsed and merged base and extensions locations, shared by every
+ * {@link Krausening} instance that loads the same locations (e.g., the
+ * default instance and one instance per override extensions subfolder). Each
+ * instance layers only its own override extensions on top, so the shared
+ * locations are parsed and held in memory once rather than once per
+ * instance. A file without overrides is served from the shared merge as-is,
+ * and a file with overrides only holds the overridden entries, looking up the
+ * rest in the shared merge.
+ * <p>
+ * A shared layer is immutable. It is replaced, rather than changed, once any
+ * of its files is modified, added, or removed.
+ */
+final class SharedBaseLayer {
+
+    /** Physical files of each file name, in precedence order. */
+    private final Map<String, List<ParsedPropertiesFile>> parsedFiles;
+
+    /** Merged entries of each file name, as written. */
+    private final Map<String, FrozenPropertyMap> mergedEntries;
+
+    /** Names of the files with at least one encrypted value. */
+    private final Set<String> encryptedFileNames;
+
+    private final List<LocationLoadStatistics> loadStatistics;
+
+    private final Map<String, File> locations;
+
+    /** The .properties file names found in each configured location, or null if it could not be listed. */
+    private final Map<File, List<String>> listedFileNames;
+
+    /**
+     * @param parsedFiles
+     *            physical files of each file name, in precedence order
+     * @param loadStatistics
+     *            statistics of the base and extensions locations
+     * @param locations
+     *            the base and extensions locations that exist, keyed by
+     *            location type
+     * @param configuredLocations
+     *            every configured location, whether or not it exists
+     */
+    SharedBaseLayer(Map<String, List<ParsedPropertiesFile>> parsedFiles, List<LocationLoadStatistics> loadStatistics,
+            Map<String, File> locations, List<File> configuredLocations) {
+        Map<String, List<ParsedPropertiesFile>> files = new HashMap<>();
+        Map<String, FrozenPropertyMap> merged = new HashMap<>();
+        Set<String> encrypted = new HashSet<>();
+        for (Map.Entry<String, List<ParsedPropertiesFile>> entry : parsedFiles.entrySet()) {
+            files.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            Map<String, String> mergedFile = merge(entry.getValue());
+            if (mergedFile != null) {
+                merged.put(entry.getKey(), FrozenPropertyMap.copyOf(mergedFile));
+                for (String value : mergedFile.values()) {
+                    if (PropertyValueEncryptionUtils.isEncryptedValue(value)) {
+                        encrypted.add(entry.getKey());
+                        break;
+                    }
+                }
+            }
+        }
+        this.parsedFiles = files;
+        this.mergedEntries = merged;
+        this.encryptedFileNames = encrypted;
+        this.loadStatistics = Collections.unmodifiableList(loadStatistics);
+        this.locations = Collections.unmodifiableMap(new LinkedHashMap<>(locations));
+        this.listedFileNames = new LinkedHashMap<>();
+        for (File location : configuredLocations) {
+            listedFileNames.put(location, listFileNames(location));
+        }
+    }
+
+    private static Map<String, String> merge(List<ParsedPropertiesFile> files) {
+        Map<String, String> merged = null;
+        for (ParsedPropertiesFile file : files) {
+            Map<String, String> entries = file.getEntries();
+            if (entries != null) {
+                if (merged == null) {
+                    merged = new HashMap<>(entries);
+                } else {
+                    merged.putAll(entries);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static List<String> listFileNames(File location) {
+        String[] fileNames = location.list((FilenameFilter) new SuffixFileFilter(".properties"));
+        if (fileNames == null) {
+            return null;
+        }
+        Arrays.sort(fileNames);
+        return Arrays.asList(fileNames);
+    }
+
+    /**
+     * @return true if no file of this layer has been modified, added, or
+     *         removed since it was loaded, checked by modification time and
+     *         size without reading any file
+     */
+    boolean isCurrent() {
+        for (Map.Entry<File, List<String>> listing : listedFileNames.entrySet()) {
+            List<String> currentFileNames = listFileNames(listing.getKey());
+            if ((currentFileNames == null) ? listing.getValue() != null
+                    : !currentFileNames.equals(listing.getValue())) {
+                return false;
+            }
+        }
+        for (List<ParsedPropertiesFile> files : parsedFiles.values()) {
+            for (ParsedPropertiesFile file : files) {
+                if (!file.isUnchangedOnDisk()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the names of the files of this layer
+     */
+    Set<String> getFileNames() {
+        return parsedFiles.keySet();
+    }
+
+    /**
+     * @param fileName
+     *            a file name
+     * @return the physical files of that name, in precedence order, or an
+     *         empty list if this layer has none
+     */
+    List<ParsedPropertiesFile> getParsedFiles(String fileName) {
+        List<ParsedPropertiesFile> files = parsedFiles.get(fileName);
+        return (files != null) ? files : Collections.<ParsedPropertiesFile>emptyList();
+    }
+
+    /**
+     * Creates a managed file for an instance, layering the instance's own
+     * files of the given name over this layer's merged entries. Only the
+     * entries of the instance's files are held by the managed file; a file
+     * that the instance has none of shares this layer's entries as-is.
+     *
+     * @param fileName
+     *            a file name
+     * @param overrideFiles
+     *            the instance's parsed files of that name, in precedence
+     *            order, which may be none
+     * @param propertiesFactory
+     *            the instance's factory, whose encryption settings are used to
+     *            decrypt the shared entries
+     * @return the managed file, or null if none of its physical files could be
+     *         read
+     */
+    ManagedPropertiesFile layer(String fileName, List<ParsedPropertiesFile> overrideFiles,
+            PropertiesFactory propertiesFactory) {
+        FrozenPropertyMap merged = mergedEntries.get(fileName);
+        if (merged == null) {
+            List<ParsedPropertiesFile> layeredFiles = new ArrayList<>(getParsedFiles(fileName));
+            layeredFiles.addAll(overrideFiles);
+            return layeredFiles.isEmpty() ? null
+                    : ManagedPropertiesFile.loaded(fileName, layeredFiles, propertiesFactory);
+        }
+        FrozenPropertyMap baseMap = encryptedFileNames.contains(fileName)
+                ? propertiesFactory.share(merged)
+                : merged;
+        return ManagedPropertiesFile.layered(fileName, parsedFiles.get(fileName), baseMap, overrideFiles,
+                propertiesFactory);
+    }
+
+    List<LocationLoadStatistics> getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    Map<String, File> getLocations() {
+        return locations;
+    }
+
+}
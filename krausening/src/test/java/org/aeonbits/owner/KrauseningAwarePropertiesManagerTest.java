@@ -0,0 +1,303 @@
+package org.aeonbits.owner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.aeonbits.owner.Config.DisableFeature;
+import org.aeonbits.owner.Config.DisableableFeature;
+import org.aeonbits.owner.Config.HotReload;
+import org.aeonbits.owner.Config.HotReloadType;
+import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.technologybrewery.krausening.Krausening;
+import org.technologybrewery.krausening.KrauseningException;
+
+public class KrauseningAwarePropertiesManagerTest {
+
+    private static final String EXAMPLE_PROPERTIES_FILE_NAME = "example.properties";
+
+    private static final String RELOADABLE_PROPERTIES_FILE_NAME = "reloadable.properties";
+
+    private static final String EXPANSION_PROPERTIES_FILE_NAME = "expansion.properties";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ScheduledExecutorService scheduler;
+
+    private KrauseningHotReloadWatcher hotReloadWatcher;
+
+    @Before
+    public void setUp() {
+        System.setProperty(Krausening.BASE_LOCATION, "./src/test/resources/base");
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, "./src/test/resources/extensions");
+        Krausening.getInstance().loadProperties();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        hotReloadWatcher = new KrauseningHotReloadWatcher(scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        System.setProperty(Krausening.BASE_LOCATION, "./src/test/resources/base");
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, "./src/test/resources/extensions");
+        Krausening.getInstance().loadProperties();
+    }
+
+    @Test
+    public void testProxiesWithTheSameSourcesShareMergedProperties() {
+        Properties first = createManager(FirstExampleConfig.class).doLoad();
+        Properties second = createManager(SecondExampleConfig.class).doLoad();
+        assertSame(first, second);
+        assertEquals("bar", first.getProperty("foo"));
+    }
+
+    @Test
+    public void testPropertiesAreMergedAgainAfterReload() {
+        Properties beforeReload = createManager(FirstExampleConfig.class).doLoad();
+        Krausening.getInstance().loadProperties();
+        Properties afterReload = createManager(SecondExampleConfig.class).doLoad();
+        assertNotSame(beforeReload, afterReload);
+        assertEquals(beforeReload, afterReload);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSharedMergedPropertiesCannotBeChanged() {
+        createManager(FirstExampleConfig.class).doLoad().setProperty("foo", "changed");
+    }
+
+    @Test
+    public void testHotReloadingProxiesShareWatchedFiles() {
+        createManager(AsyncHotReloadConfig.class);
+        createManager(SyncHotReloadConfig.class);
+        createManager(SyncHotReloadConfig.class);
+        int locationCount = Krausening.getInstance().getLocations().size();
+        assertEquals(locationCount, hotReloadWatcher.getWatchedFileCount());
+    }
+
+    @Test
+    public void testPollingFollowsLiveAsyncProxies() throws Exception {
+        // OWNER's own polling of each ASYNC proxy holds on to it until its scheduler is shut down
+        ScheduledExecutorService fastScheduler = Executors.newSingleThreadScheduledExecutor();
+        ScheduledExecutorService slowScheduler = Executors.newSingleThreadScheduledExecutor();
+        createManager(AsyncHotReloadConfig.class, fastScheduler);
+        createManager(SlowAsyncHotReloadConfig.class, slowScheduler);
+        assertEquals(50L, hotReloadWatcher.getPollingIntervalMillis());
+
+        fastScheduler.shutdownNow();
+        awaitPollingInterval(200L);
+        assertEquals(200L, hotReloadWatcher.getPollingIntervalMillis());
+        slowScheduler.shutdownNow();
+        awaitPollingInterval(Long.MAX_VALUE);
+        assertEquals("Polling should stop once no ASYNC proxies remain", Long.MAX_VALUE,
+                hotReloadWatcher.getPollingIntervalMillis());
+    }
+
+    @Test
+    public void testChangeIsFannedOutToDependentProxies() throws Exception {
+        File base = temporaryFolder.newFolder("base");
+        File extensions = temporaryFolder.newFolder("extensions");
+        System.setProperty(Krausening.BASE_LOCATION, base.getPath());
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, extensions.getPath());
+        writeProperty(new File(base, RELOADABLE_PROPERTIES_FILE_NAME), "original");
+        Krausening.getInstance().loadProperties();
+
+        KrauseningAwarePropertiesManager asyncManager = createManager(AsyncHotReloadConfig.class);
+        KrauseningAwarePropertiesManager syncManager = createManager(SyncHotReloadConfig.class);
+        KrauseningAwarePropertiesManager unrelatedManager = createManager(FirstExampleConfig.class);
+        asyncManager.load();
+        syncManager.load();
+        unrelatedManager.load();
+        assertEquals("original", asyncManager.getProperty("value"));
+        assertNull(unrelatedManager.getProperty("foo"));
+
+        // created in a location that did not have the file yet
+        File extensionsFile = new File(extensions, RELOADABLE_PROPERTIES_FILE_NAME);
+        writeProperty(extensionsFile, "changed");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"changed".equals(asyncManager.getProperty("value")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(25);
+        }
+        assertEquals("changed", asyncManager.getProperty("value"));
+
+        Thread.sleep(150);
+        syncManager.syncReloadCheck();
+        assertEquals("changed", syncManager.getProperty("value"));
+    }
+
+    @Test
+    public void testVariablesAreCheckedButNotExpandedWhenMerged() throws Exception {
+        useExpansionProperties("region=us-east\nenv=prod-${region}\nurl=https://${env}.example.com/${missing}\n");
+        Properties properties = createManager(ExpansionConfig.class).doLoad();
+        assertEquals("prod-${region}", properties.getProperty("env"));
+        assertSame(properties, createManager(ExpansionConfig.class).doLoad());
+
+        ExpansionConfig config = KrauseningConfigFactory.create(ExpansionConfig.class);
+        assertEquals("https://prod-us-east.example.com/", config.url());
+        assertEquals("Accessible methods should return values as written", "prod-${region}",
+                config.getProperty("env"));
+    }
+
+    @Test
+    public void testVariablesAreNotExpandedWhenExpansionIsDisabled() throws Exception {
+        useExpansionProperties("region=us-east\nenv=prod-${region}\n");
+        Properties properties = createManager(RawExpansionConfig.class).doLoad();
+        assertEquals("prod-${region}", properties.getProperty("env"));
+    }
+
+    @Test
+    public void testCircularVariableReferencesFailLoad() throws Exception {
+        useExpansionProperties("a=${b}\nb=x${c}\nc=${a}\nd=${c}\nregion=us-east\nenv=prod-${region}\n");
+        try {
+            createManager(ExpansionConfig.class).doLoad();
+            fail("Circular variable references should fail the load");
+        } catch (KrauseningException e) {
+            String cycle = e.getMessage().replace("Circular variable reference: ", "");
+            assertTrue(e.getMessage(), Arrays.asList("${a} -> ${b} -> ${c} -> ${a}", "${b} -> ${c} -> ${a} -> ${b}",
+                    "${c} -> ${a} -> ${b} -> ${c}").contains(cycle));
+        }
+
+        Properties properties = createManager(RawExpansionConfig.class).doLoad();
+        assertEquals("Values only read unexpanded may refer to each other", "${b}", properties.getProperty("a"));
+    }
+
+    @Test
+    public void testCircularReferencesThroughDefaultValuesFailLoad() throws Exception {
+        useExpansionProperties("greeting=hello ${name}\n");
+        try {
+            createManager(CircularDefaultConfig.class).doLoad();
+            fail("Circular variable references should fail the load");
+        } catch (KrauseningException e) {
+            assertEquals("Circular variable reference: ${greeting} -> ${name} -> ${greeting}", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testVariablesExpandToDefaultValues() throws Exception {
+        useExpansionProperties("greeting=hello ${name}\n");
+        assertEquals("hello ", KrauseningConfigFactory.create(ExpansionConfig.class).greeting());
+
+        DefaultedExpansionConfig config = KrauseningConfigFactory.create(DefaultedExpansionConfig.class);
+        assertEquals("hello world", config.greeting());
+        assertEquals("world", config.name());
+    }
+
+    private void useExpansionProperties(String contents) throws IOException {
+        File base = temporaryFolder.newFolder("expansion-base");
+        Files.write(new File(base, EXPANSION_PROPERTIES_FILE_NAME).toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        System.setProperty(Krausening.BASE_LOCATION, base.getPath());
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, temporaryFolder.newFolder("expansion-extensions").getPath());
+        Krausening.getInstance().loadProperties();
+    }
+
+    /**
+     * Collects garbage until proxies that are no longer referenced have been unregistered by the polling task.
+     */
+    private void awaitPollingInterval(long intervalMillis) throws InterruptedException {
+        for (int i = 0; i < 100 && hotReloadWatcher.getPollingIntervalMillis() != intervalMillis; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+    }
+
+    private static void writeProperty(File file, String value) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("value", value);
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, null);
+        }
+    }
+
+    private KrauseningAwarePropertiesManager createManager(Class<? extends Config> clazz) {
+        return createManager(clazz, scheduler);
+    }
+
+    private KrauseningAwarePropertiesManager createManager(Class<? extends Config> clazz,
+            ScheduledExecutorService ownerScheduler) {
+        KrauseningAwarePropertiesManager manager = new KrauseningAwarePropertiesManager(clazz, new Properties(),
+                ownerScheduler, hotReloadWatcher, new VariablesExpander(new Properties()), new LoadersManager(),
+                new Map<?, ?>[0]);
+        // reload events are sourced from the proxy
+        manager.setProxy(new Object());
+        return manager;
+    }
+
+    @KrauseningSources(EXAMPLE_PROPERTIES_FILE_NAME)
+    interface FirstExampleConfig extends KrauseningConfig {
+    }
+
+    @KrauseningSources(EXAMPLE_PROPERTIES_FILE_NAME)
+    interface SecondExampleConfig extends KrauseningConfig {
+    }
+
+    @KrauseningSources(EXPANSION_PROPERTIES_FILE_NAME)
+    interface ExpansionConfig extends KrauseningConfig {
+        @Key("url")
+        String url();
+
+        @Key("greeting")
+        String greeting();
+    }
+
+    @KrauseningSources(EXPANSION_PROPERTIES_FILE_NAME)
+    interface DefaultedExpansionConfig extends KrauseningConfig {
+        @Key("greeting")
+        String greeting();
+
+        @Key("name")
+        @DefaultValue("world")
+        String name();
+    }
+
+    @KrauseningSources(EXPANSION_PROPERTIES_FILE_NAME)
+    interface CircularDefaultConfig extends KrauseningConfig {
+        @Key("name")
+        @DefaultValue("${greeting}")
+        String name();
+    }
+
+    @KrauseningSources(EXPANSION_PROPERTIES_FILE_NAME)
+    interface RawExpansionConfig extends KrauseningConfig {
+        @Key("env")
+        @DisableFeature(DisableableFeature.VARIABLE_EXPANSION)
+        String getRawEnv();
+    }
+
+    @HotReload(value = 50, unit = TimeUnit.MILLISECONDS, type = HotReloadType.ASYNC)
+    @KrauseningSources(RELOADABLE_PROPERTIES_FILE_NAME)
+    interface AsyncHotReloadConfig extends KrauseningConfig {
+    }
+
+    @HotReload(value = 200, unit = TimeUnit.MILLISECONDS, type = HotReloadType.ASYNC)
+    @KrauseningSources(RELOADABLE_PROPERTIES_FILE_NAME)
+    interface SlowAsyncHotReloadConfig extends KrauseningConfig {
+    }
+
+    @HotReload(value = 100, unit = TimeUnit.MILLISECONDS, type = HotReloadType.SYNC)
+    @KrauseningSources(RELOADABLE_PROPERTIES_FILE_NAME)
+    interface SyncHotReloadConfig extends KrauseningConfig {
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.aeonbits.owner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.aeonbits.owner.KrauseningConfig.KrauseningMergePolicy.KrauseningMergePolicyType;
+import org.junit.Test;
+
+public class KrauseningMergePolicyTypeTest {
+
+    @Test
+    public void testPrecedencePoliciesMatchCopyingMerges() {
+        List<Properties> sources = Arrays.asList(properties("a", "1", "b", "1"), properties(),
+                properties("b", "2", "c", "2"), properties("c", "3", "d", "3"));
+
+        Properties last = KrauseningMergePolicyType.LAST_TAKES_PRECEDENCE.mergeProperties(sources);
+        assertEquals(copyMerge(sources, false), last);
+        assertEquals(copyMerge(sources, false), new HashMap<>(last));
+        assertEquals("3", last.getProperty("c"));
+
+        Properties first = KrauseningMergePolicyType.FIRST_TAKES_PRECEDENCE.mergeProperties(sources);
+        assertEquals(copyMerge(sources, true), first);
+        assertEquals("2", first.getProperty("c"));
+        assertEquals(4, first.stringPropertyNames().size());
+        assertNull(first.getProperty("missing"));
+        assertEquals("fallback", first.getProperty("missing", "fallback"));
+    }
+
+    @Test
+    public void testEmptySourcesAreSkipped() {
+        Properties source = properties("a", "1", "b", "2");
+        Properties merged = KrauseningMergePolicyType.FAIL_ON_DUPLICATE_PROPERTY_KEY
+                .mergeProperties(Arrays.asList(properties(), source, properties()));
+        assertEquals(source, merged);
+        assertTrue(KrauseningMergePolicyType.LAST_TAKES_PRECEDENCE
+                .mergeProperties(Arrays.asList(properties(), properties())).isEmpty());
+    }
+
+    @Test
+    public void testDuplicateKeysAreAllReported() {
+        List<Properties> sources = Arrays.asList(properties("a", "1", "b", "1"), properties("b", "2", "c", "2"),
+                properties("a", "3"));
+        try {
+            KrauseningMergePolicyType.FAIL_ON_DUPLICATE_PROPERTY_KEY.mergeProperties(sources);
+            fail("Expected duplicate keys to be reported");
+        } catch (RuntimeException e) {
+            assertEquals("The following duplicate property key(s) were found: a, b", e.getMessage());
+        }
+    }
+
+    private static Map<Object, Object> copyMerge(List<Properties> sources, boolean firstTakesPrecedence) {
+        Map<Object, Object> merged = new HashMap<>();
+        for (Properties source : sources) {
+            for (String key : source.stringPropertyNames()) {
+                if (firstTakesPrecedence) {
+                    merged.putIfAbsent(key, source.getProperty(key));
+                } else {
+                    merged.put(key, source.getProperty(key));
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static Properties properties(String... keysAndValues) {
+        Properties properties = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return properties;
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.aeonbits.owner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ReloadCheckGateTest {
+
+    private static final int CONCURRENT_CALLERS = 16;
+
+    @Test
+    public void testChecksAreLimitedToOncePerInterval() throws Exception {
+        ReloadCheckGate gate = new ReloadCheckGate(50);
+        assertFalse("Expected the first check to wait for the interval", gate.tryEnter());
+
+        Thread.sleep(75);
+        assertTrue(gate.tryEnter());
+        assertFalse(gate.tryEnter());
+
+        Thread.sleep(75);
+        assertTrue(gate.tryEnter());
+    }
+
+    @Test
+    public void testOnlyOneConcurrentCallerChecks() throws Exception {
+        final ReloadCheckGate gate = new ReloadCheckGate(500);
+        Thread.sleep(550);
+
+        final CountDownLatch startingGun = new CountDownLatch(1);
+        final AtomicInteger checks = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+                calls.add(callers.submit(() -> {
+                    startingGun.await();
+                    if (gate.tryEnter()) {
+                        checks.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            startingGun.countDown();
+            for (Future<?> call : calls) {
+                call.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, checks.get());
+    }
+
+}
@@ -1,5 +1,11 @@
 package org.technologybrewery.krausening;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Properties;
+
 public abstract class AbstractKrauseningTest {
 
 	protected static final String BASE_PROPERTIES_LOCATION = "./src/test/resources/base";
@@ -28,4 +34,12 @@ public abstract class AbstractKrauseningTest {
         krausening.setOverrideExtensionsSubfolder(overrideSubfolder);
         return krausening;
     }
+
+	protected void writeProperty(File file, String key, String value) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(key, value);
+		try (Writer writer = new FileWriter(file)) {
+			properties.store(writer, null);
+		}
+	}
 }
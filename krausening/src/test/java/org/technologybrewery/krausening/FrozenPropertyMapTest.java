@@ -0,0 +1,85 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FrozenPropertyMapTest {
+
+    @Test
+    public void testLookupsMatchSourceMap() {
+        Random random = new Random(42L);
+        for (int size : new int[] { 0, 1, 2, 3, 7, 64, 1000 }) {
+            Map<String, String> source = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                source.put("key." + random.nextInt(), "value." + i);
+            }
+            FrozenPropertyMap frozen = FrozenPropertyMap.copyOf(source);
+
+            assertEquals(source.size(), frozen.size());
+            assertEquals(source.keySet(), frozen.keySet());
+            for (Map.Entry<String, String> entry : source.entrySet()) {
+                assertEquals(entry.getValue(), frozen.get(entry.getKey()));
+                assertTrue(frozen.containsKey(entry.getKey()));
+            }
+            assertNull(frozen.get("missing"));
+            assertEquals("default", frozen.get("missing", "default"));
+            assertNull(frozen.get(null));
+        }
+    }
+
+    @Test
+    public void testCollidingKeysAreAllRetrievable() {
+        // "Aa" and "BB" share a hash code, as do all concatenations of them
+        Map<String, String> source = new HashMap<>();
+        String[] blocks = { "Aa", "BB" };
+        for (int i = 0; i < 16; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 4; bit++) {
+                key.append(blocks[(i >> bit) & 1]);
+            }
+            source.put(key.toString(), Integer.toString(i));
+        }
+        FrozenPropertyMap frozen = FrozenPropertyMap.copyOf(source);
+        for (Map.Entry<String, String> entry : source.entrySet()) {
+            assertEquals(entry.getValue(), frozen.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testNonStringEntriesAreSkipped() {
+        Properties properties = new Properties();
+        properties.setProperty("string", "value");
+        properties.put("number", 1);
+        FrozenPropertyMap frozen = FrozenPropertyMap.copyOf(properties);
+        assertEquals(1, frozen.size());
+        assertFalse(frozen.containsKey("number"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testKeySetCannotBeModified() {
+        Map<String, String> source = new HashMap<>();
+        source.put("key", "value");
+        FrozenPropertyMap.copyOf(source).keySet().remove("key");
+    }
+
+    @Test
+    public void testForEachVisitsEveryEntry() {
+        Map<String, String> source = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            source.put("key." + i, "value." + i);
+        }
+        Map<String, String> visited = new HashMap<>();
+        FrozenPropertyMap.copyOf(source).forEach(visited::put);
+        assertEquals(source, visited);
+    }
+
+}
@@ -0,0 +1,156 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KrauseningBundleTest extends AbstractKrauseningTest {
+
+    private static final String[] FILE_NAMES = { EXAMPLE_PROPERTIES_FILE_NAME, "a-example.properties",
+            "config.properties", "encrypted.properties" };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testBundleLoadsSamePropertiesAsDirectories() throws IOException {
+        File bundleFile = compileTestResources();
+
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION,
+                OVERRIDDEN_EXTENSIONS_LOCATION, WAR_1_PROPERTIES_SUBFOLDER);
+        krausening.loadProperties();
+        Map<String, Properties> fromDirectories = new HashMap<>();
+        for (String fileName : FILE_NAMES) {
+            fromDirectories.put(fileName, krausening.getProperties(fileName));
+        }
+
+        krausening = getKrausening(bundleFile.getPath(), NO_LOCATION, NO_LOCATION, WAR_1_PROPERTIES_SUBFOLDER);
+        krausening.loadProperties();
+        for (String fileName : FILE_NAMES) {
+            assertEquals(fileName, fromDirectories.get(fileName), krausening.getProperties(fileName));
+        }
+        assertEquals(WAR_1_OVERRIDDEN_PROPERTY_VALUE,
+                krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals(Arrays.asList(Krausening.BASE_LOCATION, Krausening.EXTENSIONS_LOCATION,
+                Krausening.OVERRIDE_EXTENSIONS_LOCATION),
+                krausening.getLayeredView(EXAMPLE_PROPERTIES_FILE_NAME).getLocationTypes());
+        assertTrue("A bundle that has not changed is current",
+                krausening.isCurrent(Arrays.asList(EXAMPLE_PROPERTIES_FILE_NAME)));
+
+        krausening.setOverrideExtensionsSubfolder(NO_LOCATION);
+        krausening.loadProperties();
+        assertEquals(OVERRIDDEN_PROPERTY_VALUE,
+                krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(OVERRIDDEN_PROPERTY_KEY));
+    }
+
+    @Test
+    public void testBundleKeepsEveryOverrideSubfolder() throws IOException {
+        KrauseningBundle bundle = KrauseningBundle.open(compileTestResources());
+        assertTrue(bundle.getOverrideExtensionSubfolders().containsAll(Arrays.asList("test-war-1", "test-war-2")));
+        assertEquals(WAR_2_OVERRIDDEN_PROPERTY_VALUE, bundle.getMergedEntries(EXAMPLE_PROPERTIES_FILE_NAME,
+                WAR_2_PROPERTIES_SUBFOLDER).get(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals(FOO_PROPERTY_VALUE,
+                bundle.getEntries(KrauseningBundle.BASE_LAYER, EXAMPLE_PROPERTIES_FILE_NAME).get(FOO_PROPERTY_KEY));
+    }
+
+    @Test
+    public void testInstancesShareOneBundle() throws IOException {
+        File overrides = temporaryFolder.newFolder("overrides");
+        String firstSubfolder = newOverrideSubfolder(overrides, "first");
+        String secondSubfolder = newOverrideSubfolder(overrides, "second");
+        File bundleFile = new File(temporaryFolder.getRoot(), "krausening.bundle");
+        KrauseningBundle.compile(new File(BASE_PROPERTIES_LOCATION), new File(EXTENSIONS_PROPERTIES_LOCATION),
+                overrides).write(bundleFile);
+        System.setProperty(Krausening.BASE_LOCATION, bundleFile.getPath());
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, NO_LOCATION);
+        System.setProperty(Krausening.OVERRIDE_EXTENSIONS_LOCATION, NO_LOCATION);
+
+        Krausening first = Krausening.getInstance(firstSubfolder);
+        Krausening second = Krausening.getInstance(secondSubfolder);
+        assertSame(KrauseningBundle.openShared(bundleFile, true), KrauseningBundle.openShared(bundleFile, true));
+        assertSame("Files without overrides should not be decoded or merged again",
+                first.getPropertyMap("config.properties"), second.getPropertyMap("config.properties"));
+        assertEquals("first", first.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME).get(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals("second", second.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME).get(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals(FOO_PROPERTY_VALUE, second.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME).get(FOO_PROPERTY_KEY));
+    }
+
+    @Test
+    public void testChangedBundleIsOpenedAgain() throws IOException {
+        File bundleFile = compileTestResources();
+        KrauseningBundle original = KrauseningBundle.openShared(bundleFile, true);
+        assertNotSame("A bundle that may not be reused should be opened again", original,
+                KrauseningBundle.openShared(bundleFile, false));
+        original = KrauseningBundle.openShared(bundleFile, true);
+
+        KrauseningBundle.compile(new File(BASE_PROPERTIES_LOCATION), null, null).write(bundleFile);
+        KrauseningBundle changed = KrauseningBundle.openShared(bundleFile, true);
+        assertNotSame(original, changed);
+        assertFalse(changed.getLayers().contains(KrauseningBundle.EXTENSIONS_LAYER));
+    }
+
+    @Test
+    public void testMalformedFileFailsCompile() throws IOException {
+        File base = temporaryFolder.newFolder("malformed");
+        Files.write(new File(base, "bad.properties").toPath(), "key=\\uZZZZ\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            KrauseningBundle.compile(base, null, null);
+            fail("Expected a malformed file to be reported");
+        } catch (KrauseningException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("bad.properties"));
+        }
+    }
+
+    @Test
+    public void testCorruptBundleIsRejected() throws IOException {
+        File bundleFile = compileTestResources();
+        try (RandomAccessFile file = new RandomAccessFile(bundleFile, "rw")) {
+            file.seek(file.length() / 2);
+            int value = file.read();
+            file.seek(file.length() / 2);
+            file.write(value ^ 0xFF);
+        }
+        assertTrue(KrauseningBundle.isBundle(bundleFile));
+        try {
+            KrauseningBundle.open(bundleFile);
+            fail("Expected a corrupt bundle to be rejected");
+        } catch (IOException e) {
+            assertEquals("Checksum mismatch", e.getMessage());
+        }
+        assertFalse(KrauseningBundle.isBundle(new File(BASE_PROPERTIES_LOCATION, EXAMPLE_PROPERTIES_FILE_NAME)));
+    }
+
+    private String newOverrideSubfolder(File overrides, String overriddenValue) throws IOException {
+        String subfolder = UUID.randomUUID().toString();
+        File location = new File(overrides, subfolder);
+        location.mkdir();
+        writeProperty(new File(location, EXAMPLE_PROPERTIES_FILE_NAME), OVERRIDDEN_PROPERTY_KEY, overriddenValue);
+        return "/" + subfolder;
+    }
+
+    private File compileTestResources() throws IOException {
+        File bundleFile = new File(temporaryFolder.getRoot(), "krausening.bundle");
+        KrauseningBundle.compile(new File(BASE_PROPERTIES_LOCATION), new File(EXTENSIONS_PROPERTIES_LOCATION),
+                new File(OVERRIDDEN_EXTENSIONS_LOCATION)).write(bundleFile);
+        return bundleFile;
+    }
+
+}
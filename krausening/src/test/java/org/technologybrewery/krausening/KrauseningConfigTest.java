@@ -2,22 +2,32 @@ package org.technologybrewery.krausening;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.aeonbits.owner.Config.ConverterClass;
 import org.aeonbits.owner.Config.HotReload;
 import org.aeonbits.owner.Config.HotReloadType;
 import org.aeonbits.owner.Config.Sources;
+import org.aeonbits.owner.Converter;
 import org.aeonbits.owner.KrauseningConfig;
+import org.aeonbits.owner.KrauseningConfig.DisableValueCache;
 import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
 import org.aeonbits.owner.KrauseningConfigFactory;
+import org.aeonbits.owner.Mutable;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,6 +51,7 @@ public class KrauseningConfigTest extends AbstractKrauseningTest {
         System.setProperty(Krausening.EXTENSIONS_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
         System.setProperty(Krausening.OVERRIDE_EXTENSIONS_LOCATION, OVERRIDDEN_EXTENSIONS_LOCATION);
         Krausening krausening = Krausening.getInstance();
+        krausening.setOverrideExtensionsSubfolder(null);
         krausening.loadProperties();
     }
 
@@ -169,6 +180,98 @@ public class KrauseningConfigTest extends AbstractKrauseningTest {
                 Double.valueOf(doesNotExistConfig.getPi()));
     }
 
+    @Test
+    public void testPrecomputedConfigMatchesProxy() throws Exception {
+        PrecomputedPropertiesConfig proxy = KrauseningConfigFactory.create(PrecomputedPropertiesConfig.class);
+        PrecomputedPropertiesConfig generated = KrauseningConfigFactory
+                .createPrecomputed(PrecomputedPropertiesConfig.class);
+
+        assertEquals(proxy.getPi(), generated.getPi(), 0);
+        assertEquals(proxy.getPropertyWithVariableExpansion(), generated.getPropertyWithVariableExpansion());
+        assertEquals(proxy.getFoo(), generated.getFoo());
+        assertEquals(proxy.getIntegerProperty(), generated.getIntegerProperty());
+        generated.getFooList().add("added by a caller");
+        assertEquals(proxy.getFooList(), generated.getFooList());
+        assertEquals(proxy.getProperty(FOO_PROPERTY_KEY), generated.getProperty(FOO_PROPERTY_KEY));
+        assertEquals(proxy.getProperty(NON_EXISTENT_PROPERTY_DEFAULT_KEY, "default"),
+                generated.getProperty(NON_EXISTENT_PROPERTY_DEFAULT_KEY, "default"));
+        assertEquals(proxy.toString(), generated.toString());
+        assertEquals(getExceptionClass(proxy), getExceptionClass(generated));
+    }
+
+    @Test
+    public void testPrecomputedConfigIsRefreshedWhenPropertiesChange() throws Exception {
+        PrecomputedPropertiesConfig generated = KrauseningConfigFactory
+                .createPrecomputed(PrecomputedPropertiesConfig.class);
+        assertEquals(PI_PROPERTY_VALUE, generated.getPi(), 0);
+        assertNotNull(getExceptionClass(generated));
+
+        generated.setProperty(PI_PROPERTY_KEY, "2.71828");
+        generated.setProperty("not.defined.primitive.key", "7");
+        assertEquals(2.71828, generated.getPi(), 0);
+        assertEquals("The value of PI is 2.71828", generated.getPropertyWithVariableExpansion());
+        assertEquals("An error should not outlive the value that replaced it", 7L, generated.getMissingPrimitive());
+    }
+
+    @Test
+    public void testNonPublicConfigCanBePrecomputed() throws Exception {
+        SinglePropertyFileConfig config = KrauseningConfigFactory.createPrecomputed(SinglePropertyFileConfig.class);
+        assertEquals(FOO_PROPERTY_VALUE, config.getFoo());
+        assertEquals(Integer.parseInt(NON_EXISTENT_PROPERTY_DEFAULT_VALUE), config.getIntegerProperty());
+    }
+
+    @Test
+    public void testConvertedValuesAreCachedUntilPropertiesChange() throws Exception {
+        CachedPropertiesConfig config = KrauseningConfigFactory.create(CachedPropertiesConfig.class);
+        CountingConverter.conversions.set(0);
+
+        assertEquals(Integer.valueOf(FOO_PROPERTY_VALUE.length()), config.getFooLength());
+        assertEquals(Integer.valueOf(FOO_PROPERTY_VALUE.length()), config.getFooLength());
+        assertEquals(1, CountingConverter.conversions.get());
+
+        config.setProperty(FOO_PROPERTY_KEY, "changed value");
+        assertEquals(Integer.valueOf("changed value".length()), config.getFooLength());
+        assertEquals(Integer.valueOf("changed value".length()), config.getFooLength());
+        assertEquals(2, CountingConverter.conversions.get());
+    }
+
+    @Test
+    public void testValueCacheCanBeDisabled() throws Exception {
+        CachedPropertiesConfig config = KrauseningConfigFactory.create(CachedPropertiesConfig.class);
+        CountingConverter.conversions.set(0);
+
+        config.getUncachedFooLength();
+        config.getUncachedFooLength();
+        assertEquals(2, CountingConverter.conversions.get());
+    }
+
+    @Test
+    public void testCachedCollectionsCanBeChangedByEachCaller() throws Exception {
+        CachedPropertiesConfig config = KrauseningConfigFactory.create(CachedPropertiesConfig.class);
+        List<String> fooList = config.getFooList();
+        fooList.add("added by a caller");
+        assertEquals(Collections.singletonList(FOO_PROPERTY_VALUE), config.getFooList());
+        assertNotSame(config.getFooList(), config.getFooList());
+    }
+
+    @Test
+    public void testMutableValuesAreNotShared() throws Exception {
+        CachedPropertiesConfig config = KrauseningConfigFactory.create(CachedPropertiesConfig.class);
+        Date fooDate = config.getFooDate();
+        fooDate.setTime(0L);
+        assertEquals(new Date(FOO_PROPERTY_VALUE.length()), config.getFooDate());
+        assertNotSame(config.getFooDate(), config.getFooDate());
+    }
+
+    private static Class<?> getExceptionClass(PrecomputedPropertiesConfig config) {
+        try {
+            config.getMissingPrimitive();
+            return null;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
     @KrauseningSources(EXAMPLE_PROPERTIES_FILE_NAME)
     protected interface SinglePropertyFileConfig extends KrauseningConfig {
 
@@ -183,6 +286,64 @@ public class KrauseningConfigTest extends AbstractKrauseningTest {
         int getIntegerProperty();
     }
 
+    @KrauseningSources(EXAMPLE_PROPERTIES_FILE_NAME)
+    protected interface CachedPropertiesConfig extends KrauseningConfig, Mutable {
+        @Key(FOO_PROPERTY_KEY)
+        @ConverterClass(CountingConverter.class)
+        Integer getFooLength();
+
+        @Key(FOO_PROPERTY_KEY)
+        @ConverterClass(CountingConverter.class)
+        @DisableValueCache
+        Integer getUncachedFooLength();
+
+        @Key(FOO_PROPERTY_KEY)
+        List<String> getFooList();
+
+        @Key(FOO_PROPERTY_KEY)
+        @ConverterClass(DateConverter.class)
+        Date getFooDate();
+    }
+
+    public static class DateConverter implements Converter<Date> {
+        @Override
+        public Date convert(Method method, String input) {
+            return new Date(input.length());
+        }
+    }
+
+    public static class CountingConverter implements Converter<Integer> {
+        private static final AtomicInteger conversions = new AtomicInteger();
+
+        @Override
+        public Integer convert(Method method, String input) {
+            conversions.incrementAndGet();
+            return input.length();
+        }
+    }
+
+    @KrauseningSources({ CONFIG_PROPERTIES_FILE_NAME, EXAMPLE_PROPERTIES_FILE_NAME })
+    public interface PrecomputedPropertiesConfig extends KrauseningConfig, Mutable {
+        @Key(PI_PROPERTY_KEY)
+        double getPi();
+
+        @Key("string.property.expansion")
+        String getPropertyWithVariableExpansion();
+
+        @Key(FOO_PROPERTY_KEY)
+        String getFoo();
+
+        @Key(NON_EXISTENT_PROPERTY_DEFAULT_KEY)
+        @DefaultValue(NON_EXISTENT_PROPERTY_DEFAULT_VALUE)
+        int getIntegerProperty();
+
+        @Key(FOO_PROPERTY_KEY)
+        List<String> getFooList();
+
+        @Key("not.defined.primitive.key")
+        long getMissingPrimitive();
+    }
+
     @KrauseningSources({ CONFIG_PROPERTIES_FILE_NAME, EXAMPLE_PROPERTIES_FILE_NAME })
     protected interface MultiplePropertyFileConfig extends KrauseningConfig {
         @Key(PI_PROPERTY_KEY)
@@ -0,0 +1,132 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Exercises {@link Krausening#getInstance(String)} under startup contention,
+ * where many threads request the same, not yet loaded instance at once.
+ */
+public class KrauseningInstanceRegistryTest extends AbstractKrauseningTest {
+
+    private static final int CONCURRENT_CALLERS = 64;
+
+    @Before
+    public void setLocations() {
+        System.setProperty(Krausening.BASE_LOCATION, BASE_PROPERTIES_LOCATION);
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        System.setProperty(Krausening.OVERRIDE_EXTENSIONS_LOCATION, OVERRIDDEN_EXTENSIONS_LOCATION);
+    }
+
+    @After
+    public void clearEvictionSettings() {
+        System.clearProperty(Krausening.INSTANCE_REGISTRY_MAX_SIZE);
+        System.clearProperty(Krausening.INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS);
+        System.clearProperty(Krausening.INSTANCE_REGISTRY_SOFT_REFERENCES);
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneLoadedInstance() throws Exception {
+        final String overrideSubfolder = "/" + UUID.randomUUID();
+        final CountDownLatch startingGun = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            List<Future<Krausening>> results = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+                results.add(callers.submit(new Callable<Krausening>() {
+                    public Krausening call() throws Exception {
+                        startingGun.await();
+                        Krausening krausening = Krausening.getInstance(overrideSubfolder);
+                        // touch the properties to prove the instance was handed out fully loaded
+                        krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY);
+                        return krausening;
+                    }
+                }));
+            }
+
+            startingGun.countDown();
+            Krausening expected = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<Krausening> result : results) {
+                assertSame(expected, result.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals("Properties should have been loaded exactly once", 1, expected.getLoadsStarted());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLoadedInstanceIsReturnedWithoutReloading() {
+        String overrideSubfolder = "/" + UUID.randomUUID();
+        Krausening krausening = Krausening.getInstance(overrideSubfolder);
+        long version = krausening.getSnapshotVersion();
+
+        assertSame(krausening, Krausening.getInstance(overrideSubfolder));
+        assertEquals(version, krausening.getSnapshotVersion());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedInstanceIsEvictedOnceFull() {
+        System.setProperty(Krausening.INSTANCE_REGISTRY_MAX_SIZE, "2");
+        String first = "/" + UUID.randomUUID();
+        String second = "/" + UUID.randomUUID();
+        Krausening firstInstance = Krausening.getInstance(first);
+        Krausening secondInstance = Krausening.getInstance(second);
+        InstanceRegistryStatistics before = Krausening.getInstanceRegistryStatistics();
+
+        assertSame(firstInstance, Krausening.getInstance(first));
+        Krausening.getInstance("/" + UUID.randomUUID());
+        assertSame("Recently requested instances should be kept", firstInstance, Krausening.getInstance(first));
+
+        Krausening recreated = Krausening.getInstance(second);
+        assertNotSame("The least recently requested instance should have been evicted", secondInstance, recreated);
+        assertEquals(FOO_PROPERTY_VALUE,
+                recreated.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+        assertEquals("Evicted instances should keep working", FOO_PROPERTY_VALUE,
+                secondInstance.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+
+        InstanceRegistryStatistics after = Krausening.getInstanceRegistryStatistics();
+        assertEquals(2, after.getHitCount() - before.getHitCount());
+        assertEquals(2, after.getMissCount() - before.getMissCount());
+        assertEquals(2, after.getEvictionCount() - before.getEvictionCount());
+    }
+
+    @Test
+    public void testIdleInstanceIsEvicted() throws Exception {
+        System.setProperty(Krausening.INSTANCE_REGISTRY_IDLE_EXPIRY_MILLIS, "50");
+        String overrideSubfolder = "/" + UUID.randomUUID();
+        Krausening krausening = Krausening.getInstance(overrideSubfolder);
+        assertSame(krausening, Krausening.getInstance(overrideSubfolder));
+        long evictionCount = Krausening.getInstanceRegistryStatistics().getEvictionCount();
+
+        Thread.sleep(100L);
+        assertNotSame(krausening, Krausening.getInstance(overrideSubfolder));
+        assertTrue(Krausening.getInstanceRegistryStatistics().getEvictionCount() > evictionCount);
+    }
+
+    @Test
+    public void testDefaultInstanceIsNeverEvicted() {
+        Krausening defaultInstance = Krausening.getInstance();
+        System.setProperty(Krausening.INSTANCE_REGISTRY_MAX_SIZE, "1");
+        Krausening.getInstance("/" + UUID.randomUUID());
+        Krausening.getInstance("/" + UUID.randomUUID());
+        assertSame(defaultInstance, Krausening.getInstance());
+    }
+
+}
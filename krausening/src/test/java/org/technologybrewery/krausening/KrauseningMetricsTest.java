@@ -0,0 +1,168 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KrauseningMetricsTest extends AbstractKrauseningTest {
+
+    private static final String ENCRYPTED_PROPERTIES = "encrypted.properties";
+    private static final String PASSWORD_KEY = "password";
+
+    private RecordingListener listener;
+
+    @Before
+    public void registerListener() {
+        listener = new RecordingListener();
+        KrauseningMetrics.addListener(listener);
+    }
+
+    @After
+    public void unregisterListeners() {
+        KrauseningMetrics.removeListener(listener);
+        KrauseningMetrics.removeListener(KrauseningMetrics.registerMBean());
+        System.clearProperty(Krausening.KRAUSENING_PASSWORD);
+    }
+
+    @Test
+    public void testLoadIsReportedPerFileAndLocation() {
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        krausening.loadProperties();
+
+        File[] baseFiles = propertiesFilesIn(BASE_PROPERTIES_LOCATION);
+        File[] extensionsFiles = propertiesFilesIn(EXTENSIONS_PROPERTIES_LOCATION);
+        assertEquals(baseFiles.length + extensionsFiles.length, listener.fileBytes.size());
+        for (File file : baseFiles) {
+            assertEquals(Long.valueOf(file.length()), listener.fileBytes.get(file.getName() + "@base"));
+        }
+
+        assertEquals(2, listener.locations.size());
+        LocationLoadStatistics baseStatistics = listener.locations.get(Krausening.BASE_LOCATION);
+        assertNotNull(baseStatistics);
+        assertEquals(baseFiles.length, baseStatistics.getFileCount());
+        assertEquals(sumOfLengths(baseFiles), baseStatistics.getBytesRead());
+        assertTrue(baseStatistics.getKeyCount() > 0);
+
+        assertEquals(1, listener.loads.get());
+        assertEquals(krausening.getSnapshotVersion(), listener.lastLoadedVersion.get());
+    }
+
+    @Test
+    public void testDecryptionIsReportedOncePerCachedValue() {
+        System.setProperty(Krausening.KRAUSENING_PASSWORD, "myMasterPassword");
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, NO_LOCATION);
+        krausening.loadProperties();
+
+        Properties properties = krausening.getProperties(ENCRYPTED_PROPERTIES);
+        properties.getProperty(PASSWORD_KEY);
+        properties.getProperty(PASSWORD_KEY);
+        assertEquals(1, listener.decrypts.get());
+    }
+
+    @Test
+    public void testMBeanPublishesTotals() throws Exception {
+        KrauseningMetricsCollector collector = KrauseningMetrics.registerMBean();
+        collector.reset();
+
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        krausening.loadProperties();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(KrauseningMetrics.MBEAN_NAME);
+        assertEquals(1L, server.getAttribute(name, "LoadCount"));
+        assertEquals((long) listener.fileBytes.size(), server.getAttribute(name, "FilesParsed"));
+        assertEquals(sumOfLengths(propertiesFilesIn(BASE_PROPERTIES_LOCATION))
+                + sumOfLengths(propertiesFilesIn(EXTENSIONS_PROPERTIES_LOCATION)),
+                server.getAttribute(name, "BytesRead"));
+        assertEquals(2, ((String[]) server.getAttribute(name, "LocationStatistics")).length);
+    }
+
+    @Test
+    public void testFailingListenerDoesNotPreventLoading() {
+        KrauseningMetricsListener failingListener = new KrauseningMetricsListener() {
+            @Override
+            public void fileParsed(File file, long bytes, int keyCount, long parseNanos) {
+                throw new IllegalStateException("Listener failure");
+            }
+        };
+        KrauseningMetrics.addListener(failingListener);
+        try {
+            Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, NO_LOCATION);
+            krausening.loadProperties();
+            assertEquals(FOO_PROPERTY_VALUE,
+                    krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+            assertEquals(1, listener.loads.get());
+        } finally {
+            KrauseningMetrics.removeListener(failingListener);
+        }
+    }
+
+    @Test
+    public void testNothingIsMeasuredWithoutListeners() {
+        KrauseningMetrics.removeListener(listener);
+        assertFalse(KrauseningMetrics.getListeners().contains(listener));
+
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, NO_LOCATION);
+        krausening.loadProperties();
+        assertEquals(0, listener.loads.get());
+        assertTrue(listener.fileBytes.isEmpty());
+    }
+
+    private static File[] propertiesFilesIn(String location) {
+        return new File(location).listFiles((dir, name) -> name.endsWith(".properties"));
+    }
+
+    private static long sumOfLengths(File[] files) {
+        long length = 0L;
+        for (File file : files) {
+            length += file.length();
+        }
+        return length;
+    }
+
+    private static final class RecordingListener implements KrauseningMetricsListener {
+        private final Map<String, Long> fileBytes = new ConcurrentHashMap<>();
+        private final Map<String, LocationLoadStatistics> locations = new ConcurrentHashMap<>();
+        private final AtomicInteger loads = new AtomicInteger();
+        private final AtomicLong lastLoadedVersion = new AtomicLong();
+        private final AtomicInteger decrypts = new AtomicInteger();
+
+        @Override
+        public void fileParsed(File file, long bytes, int keyCount, long parseNanos) {
+            fileBytes.put(file.getName() + "@" + file.getParentFile().getName(), bytes);
+        }
+
+        @Override
+        public void locationLoaded(LocationLoadStatistics statistics) {
+            locations.put(statistics.getLocationType(), statistics);
+        }
+
+        @Override
+        public void propertiesLoaded(long snapshotVersion, long elapsedNanos) {
+            loads.incrementAndGet();
+            lastLoadedVersion.set(snapshotVersion);
+        }
+
+        @Override
+        public void valueDecrypted(long decryptNanos) {
+            decrypts.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KrauseningSnapshotCacheTest extends AbstractKrauseningTest {
+
+    private static final String FIRST_PROPERTIES = "first.properties";
+    private static final String SECOND_PROPERTIES = "second.properties";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseLocation;
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        baseLocation = temporaryFolder.newFolder("base");
+        cacheFile = new File(temporaryFolder.getRoot(), "cache/krausening.snapshot");
+        write(FIRST_PROPERTIES, "greeting=hello", "password=ENC(not-really-encrypted)");
+        write(SECOND_PROPERTIES, "count=1");
+        System.setProperty(Krausening.SNAPSHOT_CACHE, cacheFile.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(Krausening.SNAPSHOT_CACHE);
+    }
+
+    @Test
+    public void testUnchangedFilesAreRestoredFromCache() {
+        Krausening krausening = getKrausening(baseLocation.getPath(), NO_LOCATION);
+        krausening.loadProperties();
+        assertTrue("Expected the cache to be written", cacheFile.isFile());
+
+        KrauseningSnapshotCache cache = KrauseningSnapshotCache.open(cacheFile);
+        ParsedPropertiesFile restored = cache.read(new File(baseLocation, FIRST_PROPERTIES));
+        cache.read(new File(baseLocation, SECOND_PROPERTIES));
+        assertEquals(2, cache.getHits());
+        assertEquals("hello", restored.getEntries().get("greeting"));
+        assertEquals("Encrypted values should be cached as written", "ENC(not-really-encrypted)",
+                restored.getEntries().get("password"));
+
+        krausening.loadProperties();
+        assertEquals("hello", krausening.getProperties(FIRST_PROPERTIES).getProperty("greeting"));
+        assertEquals("1", krausening.getProperties(SECOND_PROPERTIES).getProperty("count"));
+    }
+
+    @Test
+    public void testChangedFileIsParsedAndCacheRewritten() throws IOException {
+        Krausening krausening = getKrausening(baseLocation.getPath(), NO_LOCATION);
+        krausening.loadProperties();
+        long originalCacheLength = cacheFile.length();
+
+        File second = write(SECOND_PROPERTIES, "count=12345");
+        krausening.loadProperties();
+        assertEquals("12345", krausening.getProperties(SECOND_PROPERTIES).getProperty("count"));
+        assertNotEquals(originalCacheLength, cacheFile.length());
+
+        KrauseningSnapshotCache cache = KrauseningSnapshotCache.open(cacheFile);
+        assertEquals("12345", cache.read(second).getEntries().get("count"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testFileWithNewTimestampButSameContentIsRestored() throws IOException {
+        Krausening krausening = getKrausening(baseLocation.getPath(), NO_LOCATION);
+        krausening.loadProperties();
+
+        File first = new File(baseLocation, FIRST_PROPERTIES);
+        assertTrue(first.setLastModified(first.lastModified() - 60000L));
+        KrauseningSnapshotCache cache = KrauseningSnapshotCache.open(cacheFile);
+        assertEquals("hello", cache.read(first).getEntries().get("greeting"));
+        assertEquals(1, cache.getHits());
+
+        // same length and timestamp, different content
+        write(SECOND_PROPERTIES, "count=2");
+        File second = new File(baseLocation, SECOND_PROPERTIES);
+        assertTrue(second.setLastModified(second.lastModified() - 60000L));
+        assertEquals("2", cache.read(second).getEntries().get("count"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testCorruptCacheIsRebuilt() throws IOException {
+        Files.createDirectories(cacheFile.getParentFile().toPath());
+        Files.write(cacheFile.toPath(), "not a snapshot cache".getBytes());
+
+        Krausening krausening = getKrausening(baseLocation.getPath(), NO_LOCATION);
+        krausening.loadProperties();
+        assertEquals("hello", krausening.getProperties(FIRST_PROPERTIES).getProperty("greeting"));
+
+        KrauseningSnapshotCache cache = KrauseningSnapshotCache.open(cacheFile);
+        cache.read(new File(baseLocation, FIRST_PROPERTIES));
+        cache.read(new File(baseLocation, SECOND_PROPERTIES));
+        assertEquals(2, cache.getHits());
+    }
+
+    private File write(String fileName, String... lines) throws IOException {
+        File file = new File(baseLocation, fileName);
+        try (Writer writer = new FileWriter(file)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Proves that {@link PropertiesFileParser} reads exactly what
+ * {@link Properties#load(Reader)} reads, using a corpus of files covering the
+ * .properties grammar plus randomly generated content built from the
+ * characters that are significant to it.
+ */
+public class PropertiesFileParserTest {
+
+    private static final File CONFORMANCE_CORPUS = new File("./src/test/resources/parser-conformance");
+
+    private static final File NON_UTF8_FILE = new File("./src/test/resources/parser-fallback/latin1.properties");
+
+    /** Characters that are significant to the grammar, plus some non-ASCII ones. */
+    private static final char[] FUZZ_ALPHABET = { ' ', '\t', '\f', '\r', '\n', '\\', '\\', '=', ':', '#', '!', 'u',
+            '0', 'A', 'f', 'k', 'v', '\u00e9', '\u4e2d' };
+
+    @Test
+    public void testCorpusMatchesJdkParser() throws Exception {
+        File[] corpus = CONFORMANCE_CORPUS.listFiles();
+        assertNotNull(corpus);
+        assertTrue(corpus.length > 0);
+        for (File file : corpus) {
+            Properties expected = new Properties();
+            try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                expected.load(reader);
+            }
+            assertEquals(file.getName(), toMap(expected), PropertiesFileParser.read(file));
+        }
+    }
+
+    @Test
+    public void testRandomContentMatchesJdkParser() throws Exception {
+        Random random = new Random(20240601L);
+        for (int iteration = 0; iteration < 20000; iteration++) {
+            char[] content = new char[random.nextInt(40)];
+            for (int i = 0; i < content.length; i++) {
+                content[i] = FUZZ_ALPHABET[random.nextInt(FUZZ_ALPHABET.length)];
+            }
+            String text = new String(content);
+
+            Map<String, String> expected;
+            try {
+                Properties properties = new Properties();
+                properties.load(new StringReader(text));
+                expected = toMap(properties);
+            } catch (IllegalArgumentException e) {
+                expected = null;
+            }
+
+            Map<String, String> actual;
+            try {
+                actual = PropertiesFileParser.parse(content, 0, content.length);
+            } catch (IllegalArgumentException e) {
+                actual = null;
+            }
+            assertEquals(escape(text), expected, actual);
+        }
+    }
+
+    @Test
+    public void testMalformedUnicodeEscapeIsRejected() {
+        char[] content = "key=\\u12G4".toCharArray();
+        try {
+            PropertiesFileParser.parse(content, 0, content.length);
+            fail("Expected a malformed \\uXXXX escape to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Malformed \\uxxxx encoding.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNonUtf8FileFallsBackToDefaultCharset() throws IOException {
+        Properties expected = new Properties();
+        try (Reader reader = new FileReader(NON_UTF8_FILE)) {
+            expected.load(reader);
+        }
+        assertEquals(toMap(expected), ParsedPropertiesFile.read(NON_UTF8_FILE).getEntries());
+    }
+
+    private static Map<String, String> toMap(Properties properties) {
+        Map<String, String> entries = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            entries.put(name, properties.getProperty(name));
+        }
+        return entries;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t")
+                .replace("\f", "\\f");
+    }
+
+}
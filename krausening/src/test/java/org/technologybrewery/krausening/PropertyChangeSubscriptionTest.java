@@ -0,0 +1,146 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PropertyChangeSubscriptionTest extends AbstractKrauseningTest {
+
+    private static final String SUBSCRIBED_PROPERTIES = "subscribed.properties";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseLocation;
+    private Krausening krausening;
+    private final List<PropertyChanges> notifications = Collections.synchronizedList(new ArrayList<>());
+    private final List<PropertyChangeSubscription> subscriptions = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        baseLocation = temporaryFolder.newFolder("base");
+        writeProperties("datasource.url=jdbc:one", "datasource.user=sa", "cache.size=10");
+        krausening = getKrausening(baseLocation.getPath(), NO_LOCATION);
+        krausening.loadProperties();
+        // deliver on the reloading thread, so assertions can follow reloads
+        krausening.setChangeNotificationExecutor(Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        for (PropertyChangeSubscription subscription : subscriptions) {
+            subscription.cancel();
+        }
+        krausening.setChangeNotificationExecutor(null);
+    }
+
+    @Test
+    public void testKeySubscriberIsOnlyNotifiedOfItsKeys() throws IOException {
+        track(krausening.subscribe(SUBSCRIBED_PROPERTIES, Arrays.asList("datasource.url"), notifications::add));
+
+        writeProperties("datasource.url=jdbc:one", "datasource.user=sa", "cache.size=20");
+        krausening.loadProperties();
+        assertTrue("Unrelated changes should not be delivered", notifications.isEmpty());
+
+        writeProperties("datasource.url=jdbc:two", "datasource.user=sa", "cache.size=20");
+        krausening.loadProperties();
+        assertEquals(1, notifications.size());
+        PropertyChanges changes = notifications.get(0);
+        assertEquals(SUBSCRIBED_PROPERTIES, changes.getPropertiesFileName());
+        assertEquals(Collections.singleton("datasource.url"), changes.getChangedKeys());
+        assertTrue(changes.getAddedKeys().isEmpty());
+        assertTrue(changes.getRemovedKeys().isEmpty());
+        assertEquals(krausening.getSnapshotVersion(), changes.getVersion());
+    }
+
+    @Test
+    public void testPrefixSubscriberIsNotifiedOfAddedAndRemovedKeys() throws IOException {
+        track(krausening.subscribeToPrefix(SUBSCRIBED_PROPERTIES, "datasource.", notifications::add));
+
+        writeProperties("datasource.url=jdbc:one", "datasource.password=secret", "cache.size=10",
+                "cache.ttl=60");
+        krausening.loadProperties();
+
+        assertEquals(1, notifications.size());
+        PropertyChanges changes = notifications.get(0);
+        assertEquals(Collections.singleton("datasource.password"), changes.getAddedKeys());
+        assertEquals(Collections.singleton("datasource.user"), changes.getRemovedKeys());
+        assertTrue(changes.getChangedKeys().isEmpty());
+        assertFalse(changes.affects("cache.ttl"));
+    }
+
+    @Test
+    public void testRefreshOfChangedFilesIsNotified() throws IOException {
+        track(krausening.subscribe(SUBSCRIBED_PROPERTIES, notifications::add));
+
+        File file = writeProperties("datasource.url=jdbc:one", "datasource.user=admin", "cache.size=10");
+        krausening.reloadChangedFiles(Collections.singleton(file), false);
+
+        assertEquals(1, notifications.size());
+        assertEquals(Collections.singleton("datasource.user"), notifications.get(0).getChangedKeys());
+    }
+
+    @Test
+    public void testCancelledSubscriberIsNotNotified() throws IOException {
+        PropertyChangeSubscription subscription = track(
+                krausening.subscribe(SUBSCRIBED_PROPERTIES, notifications::add));
+        subscription.cancel();
+        assertFalse(subscription.isActive());
+
+        writeProperties("datasource.url=jdbc:two");
+        krausening.loadProperties();
+        assertTrue(notifications.isEmpty());
+    }
+
+    @Test
+    public void testNotificationsAreDeliveredAsynchronouslyByDefault() throws Exception {
+        krausening.setChangeNotificationExecutor(null);
+        BlockingQueue<Thread> deliveryThreads = new LinkedBlockingQueue<>();
+        track(krausening.subscribe(SUBSCRIBED_PROPERTIES,
+                changes -> deliveryThreads.add(Thread.currentThread())));
+
+        writeProperties("datasource.url=jdbc:two");
+        krausening.loadProperties();
+
+        Thread deliveryThread = deliveryThreads.poll(10, TimeUnit.SECONDS);
+        assertNotNull("Expected a notification", deliveryThread);
+        assertNotSame(Thread.currentThread(), deliveryThread);
+    }
+
+    private PropertyChangeSubscription track(PropertyChangeSubscription subscription) {
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    private File writeProperties(String... lines) throws IOException {
+        File file = new File(baseLocation, SUBSCRIBED_PROPERTIES);
+        try (Writer writer = new FileWriter(file)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReloadCoordinatorTest extends AbstractKrauseningTest {
+
+    private static final int CONCURRENT_REQUESTERS = 32;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentReloadRequestsAreCoalesced() throws Exception {
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        krausening.loadProperties();
+        final ReloadCoordinator coordinator = krausening.getReloadCoordinator();
+        long requested = coordinator.getReloadsRequested();
+        long performed = coordinator.getReloadsPerformed();
+        long coalesced = coordinator.getReloadsCoalesced();
+
+        ExecutorService requesters = Executors.newFixedThreadPool(CONCURRENT_REQUESTERS);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            // hold the instance (as an in-progress load would) until every request is waiting on it
+            synchronized (krausening) {
+                for (int i = 0; i < CONCURRENT_REQUESTERS; i++) {
+                    requests.add(requesters.submit(() -> coordinator.reload()));
+                }
+                long deadline = System.currentTimeMillis() + 30000;
+                while (coordinator.getReloadsRequested() - requested < CONCURRENT_REQUESTERS
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(5);
+                }
+            }
+            for (Future<?> request : requests) {
+                request.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            requesters.shutdownNow();
+        }
+
+        long performedLoads = coordinator.getReloadsPerformed() - performed;
+        long coalescedLoads = coordinator.getReloadsCoalesced() - coalesced;
+        assertEquals(CONCURRENT_REQUESTERS, coordinator.getReloadsRequested() - requested);
+        assertEquals(CONCURRENT_REQUESTERS, performedLoads + coalescedLoads);
+        assertEquals("Expected concurrent requests to share a single load", 1, performedLoads);
+    }
+
+    @Test
+    public void testReloadIfChangedOnlyLoadsChangedFiles() throws Exception {
+        File base = temporaryFolder.newFolder("coordinated-base");
+        File watchedFile = new File(base, EXAMPLE_PROPERTIES_FILE_NAME);
+        writeProperty(watchedFile, FOO_PROPERTY_KEY, "before");
+
+        Krausening krausening = getKrausening(base.getPath(), NO_LOCATION);
+        krausening.loadProperties();
+        ReloadCoordinator coordinator = krausening.getReloadCoordinator();
+        long version = krausening.getSnapshotVersion();
+        long performed = coordinator.getReloadsPerformed();
+        long coalesced = coordinator.getReloadsCoalesced();
+
+        // every proxy noticing the same, already loaded state shares it
+        coordinator.reloadIfChanged(Collections.singletonList(EXAMPLE_PROPERTIES_FILE_NAME));
+        coordinator.reloadIfChanged(Collections.singletonList(EXAMPLE_PROPERTIES_FILE_NAME));
+        assertEquals(version, krausening.getSnapshotVersion());
+        assertEquals(coalesced + 2, coordinator.getReloadsCoalesced());
+
+        writeProperty(watchedFile, FOO_PROPERTY_KEY, "after, and longer");
+        coordinator.reloadIfChanged(Collections.singletonList(EXAMPLE_PROPERTIES_FILE_NAME));
+        coordinator.reloadIfChanged(Collections.singletonList(EXAMPLE_PROPERTIES_FILE_NAME));
+        assertEquals(performed + 1, coordinator.getReloadsPerformed());
+        assertEquals(coalesced + 3, coordinator.getReloadsCoalesced());
+        assertEquals("after, and longer",
+                krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+    }
+
+}
@@ -0,0 +1,156 @@
+package org.technologybrewery.krausening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Exercises the sharing of base and extensions locations between instances
+ * created by {@link Krausening#getInstance(String)}.
+ */
+public class SharedBaseLayerTest extends AbstractKrauseningTest {
+
+    private static final String CONFIG_PROPERTIES = "config.properties";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File overrides;
+
+    @Before
+    public void setLocations() throws IOException {
+        overrides = temporaryFolder.newFolder("overrides");
+        System.setProperty(Krausening.BASE_LOCATION, BASE_PROPERTIES_LOCATION);
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        System.setProperty(Krausening.OVERRIDE_EXTENSIONS_LOCATION, overrides.getPath());
+    }
+
+    @After
+    public void clearPassword() {
+        System.clearProperty(Krausening.KRAUSENING_PASSWORD);
+    }
+
+    @Test
+    public void testOverrideInstancesShareFilesTheyDoNotOverride() throws IOException {
+        String firstSubfolder = newOverrideSubfolder("override.me=first\n");
+        String secondSubfolder = newOverrideSubfolder("override.me=second\n");
+
+        Krausening first = Krausening.getInstance(firstSubfolder);
+        Krausening second = Krausening.getInstance(secondSubfolder);
+        assertSame("Files without overrides should not be merged again", first.getPropertyMap(CONFIG_PROPERTIES),
+                second.getPropertyMap(CONFIG_PROPERTIES));
+
+        FrozenPropertyMap firstExample = first.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME);
+        FrozenPropertyMap secondExample = second.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME);
+        assertEquals("first", firstExample.get(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals("second", secondExample.get(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals(FOO_PROPERTY_VALUE, secondExample.get(FOO_PROPERTY_KEY));
+        assertEquals(3, second.getLastLoadStatistics().size());
+        assertEquals(Krausening.OVERRIDE_EXTENSIONS_LOCATION,
+                second.getPropertyProvenance(EXAMPLE_PROPERTIES_FILE_NAME, OVERRIDDEN_PROPERTY_KEY).getLocationType());
+    }
+
+    @Test
+    public void testOverriddenFileLayersOverridesOverBase() throws IOException {
+        Krausening krausening = Krausening.getInstance(newOverrideSubfolder("override.me=delta\nadded=true\n"));
+        FrozenPropertyMap example = krausening.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME);
+        assertEquals("delta", example.get(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals("true", example.get("added"));
+        assertEquals(FOO_PROPERTY_VALUE, example.get(FOO_PROPERTY_KEY));
+        assertEquals(Krausening.getInstance("/" + UUID.randomUUID()).getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME)
+                .size() + 1, example.size());
+        assertEquals(example.size(), example.keySet().size());
+
+        Properties properties = krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME);
+        assertEquals("delta", properties.getProperty(OVERRIDDEN_PROPERTY_KEY));
+        assertEquals(example.size(), properties.stringPropertyNames().size());
+        properties.setProperty(FOO_PROPERTY_KEY, "changed");
+        assertSame(properties, krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME));
+        assertEquals("Changing the properties should not change the shared entries", FOO_PROPERTY_VALUE,
+                example.get(FOO_PROPERTY_KEY));
+    }
+
+    @Test
+    public void testHotReloadReusesUnchangedSharedLayer() throws IOException {
+        Krausening krausening = Krausening.getInstance(newOverrideSubfolder("override.me=first\n"));
+        FrozenPropertyMap config = krausening.getPropertyMap(CONFIG_PROPERTIES);
+        long loads = krausening.getLoadsStarted();
+
+        krausening.getReloadCoordinator().reload();
+        assertEquals(loads + 1, krausening.getLoadsStarted());
+        assertSame("An unchanged shared layer should not be parsed again", config,
+                krausening.getPropertyMap(CONFIG_PROPERTIES));
+        assertEquals("first", krausening.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME).get(OVERRIDDEN_PROPERTY_KEY));
+    }
+
+    @Test
+    public void testExplicitLoadReadsSharedLayerAgain() throws IOException {
+        Krausening krausening = Krausening.getInstance(newOverrideSubfolder("override.me=first\n"));
+        FrozenPropertyMap config = krausening.getPropertyMap(CONFIG_PROPERTIES);
+
+        krausening.loadProperties();
+        FrozenPropertyMap reloaded = krausening.getPropertyMap(CONFIG_PROPERTIES);
+        assertNotSame("An explicit load should parse the shared layer again", config, reloaded);
+        assertEquals(config.get("pi"), reloaded.get("pi"));
+        assertEquals(3, krausening.getLastLoadStatistics().size());
+        assertSame("Instances created afterwards should reuse the layer just read", reloaded,
+                Krausening.getInstance("/" + UUID.randomUUID()).getPropertyMap(CONFIG_PROPERTIES));
+    }
+
+    @Test
+    public void testSharedEncryptedFileIsDecryptedPerInstance() {
+        Krausening withoutPassword = Krausening.getInstance("/" + UUID.randomUUID());
+        assertEquals("ENC(", withoutPassword.getPropertyMap("encrypted.properties").get("password").substring(0, 4));
+
+        System.setProperty(Krausening.KRAUSENING_PASSWORD, "myMasterPassword");
+        Krausening withPassword = Krausening.getInstance("/" + UUID.randomUUID());
+        assertEquals("someStrongPassword", withPassword.getPropertyMap("encrypted.properties").get("password"));
+        assertSame(withoutPassword.getPropertyMap(CONFIG_PROPERTIES), withPassword.getPropertyMap(CONFIG_PROPERTIES));
+    }
+
+    @Test
+    public void testChangedSharedFileIsReloaded() throws IOException {
+        File base = temporaryFolder.newFolder("base");
+        File baseFile = new File(base, EXAMPLE_PROPERTIES_FILE_NAME);
+        write(baseFile, "foo=bar\n");
+        System.setProperty(Krausening.BASE_LOCATION, base.getPath());
+        System.setProperty(Krausening.EXTENSIONS_LOCATION, NO_LOCATION);
+
+        Krausening original = Krausening.getInstance("/" + UUID.randomUUID());
+        assertEquals("bar", original.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME).get(FOO_PROPERTY_KEY));
+
+        write(baseFile, "foo=changed\n");
+        write(new File(base, "added.properties"), "added=true\n");
+        Krausening created = Krausening.getInstance("/" + UUID.randomUUID());
+        assertEquals("changed", created.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME).get(FOO_PROPERTY_KEY));
+        assertEquals("true", created.getPropertyMap("added.properties").get("added"));
+        assertNotSame(original.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME),
+                created.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME));
+    }
+
+    private String newOverrideSubfolder(String exampleProperties) throws IOException {
+        String subfolder = UUID.randomUUID().toString();
+        File location = new File(overrides, subfolder);
+        location.mkdir();
+        write(new File(location, EXAMPLE_PROPERTIES_FILE_NAME), exampleProperties);
+        return "/" + subfolder;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
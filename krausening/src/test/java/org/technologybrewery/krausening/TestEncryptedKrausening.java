@@ -2,12 +2,22 @@ package org.technologybrewery.krausening;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.aeonbits.owner.KrauseningConfig;
 import org.aeonbits.owner.KrauseningConfig.KrauseningSources;
 import org.aeonbits.owner.KrauseningConfigFactory;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -21,6 +31,12 @@ public class TestEncryptedKrausening extends TestKrausening {
 	public void initKrauseningEncryptionKey() {
 	    System.setProperty(Krausening.KRAUSENING_PASSWORD, "myMasterPassword");
 	}
+
+	@After
+	public void clearDecryptionCacheSetting() {
+	    System.clearProperty(Krausening.CACHE_DECRYPTED_VALUES);
+	    System.clearProperty(Krausening.ENCRYPTOR_POOL_SIZE);
+	}
 	
 	@Test
 	public void testEncryptedPropertyReadProvidesDecryptedValue() {
@@ -31,6 +47,70 @@ public class TestEncryptedKrausening extends TestKrausening {
 		assertEquals(DECRYPTED_PASSWORD_VALUE, properties.getProperty(PASSWORD_KEY));
 	}
 
+	@Test
+	public void testPropertyMapProvidesDecryptedValue() {
+		Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, NO_LOCATION);
+		krausening.loadProperties();
+		FrozenPropertyMap propertyMap = krausening.getPropertyMap(ENCRYPTED_PROPERTIES);
+		assertNotNull(propertyMap);
+		assertEquals(DECRYPTED_PASSWORD_VALUE, propertyMap.get(PASSWORD_KEY));
+		assertEquals("Encrypted values should never be rendered in plaintext", -1,
+				propertyMap.toString().indexOf(DECRYPTED_PASSWORD_VALUE));
+	}
+
+	@Test
+	public void testDecryptedValueIsCachedWithinALoad() {
+		Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, NO_LOCATION);
+		krausening.loadProperties();
+		Properties properties = krausening.getProperties(ENCRYPTED_PROPERTIES);
+		String firstRead = properties.getProperty(PASSWORD_KEY);
+		assertEquals(DECRYPTED_PASSWORD_VALUE, firstRead);
+		assertSame(firstRead, properties.getProperty(PASSWORD_KEY));
+		assertSame(firstRead, properties.get(PASSWORD_KEY));
+
+		krausening.loadProperties();
+		String readAfterReload = krausening.getProperties(ENCRYPTED_PROPERTIES).getProperty(PASSWORD_KEY);
+		assertEquals(DECRYPTED_PASSWORD_VALUE, readAfterReload);
+		assertNotSame("Reloading should discard previously decrypted values", firstRead, readAfterReload);
+	}
+
+	@Test
+	public void testDecryptedValueCacheCanBeDisabled() {
+		System.setProperty(Krausening.CACHE_DECRYPTED_VALUES, Boolean.FALSE.toString());
+		Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, NO_LOCATION);
+		krausening.loadProperties();
+		Properties properties = krausening.getProperties(ENCRYPTED_PROPERTIES);
+		String firstRead = properties.getProperty(PASSWORD_KEY);
+		assertEquals(DECRYPTED_PASSWORD_VALUE, firstRead);
+		assertNotSame(firstRead, properties.getProperty(PASSWORD_KEY));
+	}
+
+	@Test
+	public void testConcurrentDecryptionWithPooledEncryptor() throws Exception {
+		System.setProperty(Krausening.CACHE_DECRYPTED_VALUES, Boolean.FALSE.toString());
+		System.setProperty(Krausening.ENCRYPTOR_POOL_SIZE, "2");
+		Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, NO_LOCATION);
+		krausening.loadProperties();
+		final Properties properties = krausening.getProperties(ENCRYPTED_PROPERTIES);
+
+		ExecutorService readers = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> decryptedValues = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				decryptedValues.add(readers.submit(new Callable<String>() {
+					public String call() {
+						return properties.getProperty(PASSWORD_KEY);
+					}
+				}));
+			}
+			for (Future<String> decryptedValue : decryptedValues) {
+				assertEquals(DECRYPTED_PASSWORD_VALUE, decryptedValue.get(30, TimeUnit.SECONDS));
+			}
+		} finally {
+			readers.shutdownNow();
+		}
+	}
+
 	@Test
 	public void testDecryptValueThroughOwnerInterface() {
 	    EncryptedPropertyFileConfig config = KrauseningConfigFactory.create(EncryptedPropertyFileConfig.class);
@@ -3,11 +3,23 @@ package org.technologybrewery.krausening;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TestKrausening extends AbstractKrauseningTest {
 
@@ -20,6 +32,9 @@ public class TestKrausening extends AbstractKrauseningTest {
     protected static final String NOT_JUST_PROPERTIES_FILES_LOCATION = "./src/test/resources/not-just-properties-files";
     protected static final String EMPTY_PROPERTIES = "empty.properties";
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Before
     public void reloadKrausening() throws Exception {
         System.setProperty(Krausening.BASE_LOCATION, BASE_PROPERTIES_LOCATION);
@@ -195,4 +210,205 @@ public class TestKrausening extends AbstractKrauseningTest {
         assertNull(properties);
     }
 
+    @Test
+    public void testPropertyMapMatchesProperties() {
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        krausening.loadProperties();
+        Properties properties = krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME);
+        FrozenPropertyMap propertyMap = krausening.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME);
+        assertEquals(properties.stringPropertyNames(), propertyMap.keySet());
+        for (String key : properties.stringPropertyNames()) {
+            assertEquals(properties.getProperty(key), propertyMap.get(key));
+        }
+        assertSame(propertyMap, krausening.getPropertyMap(EXAMPLE_PROPERTIES_FILE_NAME));
+        assertNull(krausening.getPropertyMap("does-not-exist.properties"));
+    }
+
+    @Test
+    public void testProvenanceReportsWinningAndShadowedLayers() {
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION,
+                OVERRIDDEN_EXTENSIONS_LOCATION, WAR_2_PROPERTIES_SUBFOLDER);
+        krausening.loadProperties();
+
+        PropertyProvenance provenance = krausening.getPropertyProvenance(EXAMPLE_PROPERTIES_FILE_NAME,
+                OVERRIDDEN_PROPERTY_KEY);
+        assertEquals(WAR_2_OVERRIDDEN_PROPERTY_VALUE, provenance.getValue());
+        assertEquals(Krausening.OVERRIDE_EXTENSIONS_LOCATION, provenance.getLocationType());
+        assertEquals(EXAMPLE_PROPERTIES_FILE_NAME, provenance.getSourceFile().getName());
+        assertEquals(2, provenance.getShadowedValues().size());
+        assertEquals(OVERRIDDEN_PROPERTY_VALUE, provenance.getShadowedValues().get(0).getValue());
+        assertEquals(Krausening.EXTENSIONS_LOCATION, provenance.getShadowedValues().get(0).getLocationType());
+        assertEquals(Krausening.BASE_LOCATION, provenance.getShadowedValues().get(1).getLocationType());
+
+        PropertyProvenance baseOnly = krausening.getPropertyProvenance(EXAMPLE_PROPERTIES_FILE_NAME,
+                FOO_PROPERTY_KEY);
+        assertEquals(Krausening.BASE_LOCATION, baseOnly.getLocationType());
+        assertTrue(baseOnly.getShadowedValues().isEmpty());
+
+        LayeredPropertyView layeredView = krausening.getLayeredView(EXAMPLE_PROPERTIES_FILE_NAME);
+        assertEquals(Arrays.asList(Krausening.BASE_LOCATION, Krausening.EXTENSIONS_LOCATION,
+                Krausening.OVERRIDE_EXTENSIONS_LOCATION), layeredView.getLocationTypes());
+        assertEquals(WAR_2_OVERRIDDEN_PROPERTY_VALUE, layeredView.get(OVERRIDDEN_PROPERTY_KEY));
+        assertNull(layeredView.getProvenance("not.a.property"));
+    }
+
+    @Test
+    public void testSnapshotVersionIncreasesOnReload() {
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        krausening.loadProperties();
+        long firstVersion = krausening.getSnapshotVersion();
+        krausening.loadProperties();
+        assertTrue("Reloading should publish a newer snapshot", krausening.getSnapshotVersion() > firstVersion);
+    }
+
+    @Test
+    public void testReadersNeverSeePartiallyLoadedProperties() throws Exception {
+        final Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION);
+        krausening.loadProperties();
+
+        final AtomicBoolean reloading = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(new Runnable() {
+            public void run() {
+                while (reloading.get() && failure.get() == null) {
+                    Properties properties = krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME);
+                    if (properties == null) {
+                        failure.set("Properties were missing during a reload");
+                    } else if (!VALUE_NEW_VALUE.equals(properties.get(KEY_NEWLY_ADDED_IN_EXTENSIONS))) {
+                        failure.set("Extension properties were missing during a reload");
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 100; i++) {
+            krausening.loadProperties();
+        }
+        reloading.set(false);
+        reader.join();
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void testParallelLoadMatchesSequentialLoad() {
+        Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION,
+                OVERRIDDEN_EXTENSIONS_LOCATION, WAR_1_PROPERTIES_SUBFOLDER);
+        krausening.loadProperties();
+        Properties sequentiallyLoaded = krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME);
+
+        System.setProperty(Krausening.LOAD_PARALLELISM, "4");
+        try {
+            krausening.loadProperties();
+        } finally {
+            System.clearProperty(Krausening.LOAD_PARALLELISM);
+        }
+        Properties concurrentlyLoaded = krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME);
+        assertEquals(sequentiallyLoaded, concurrentlyLoaded);
+        assertEquals(WAR_1_OVERRIDDEN_PROPERTY_VALUE, concurrentlyLoaded.get(OVERRIDDEN_PROPERTY_KEY));
+
+        List<LocationLoadStatistics> loadStatistics = krausening.getLastLoadStatistics();
+        assertEquals(3, loadStatistics.size());
+        assertEquals(Krausening.BASE_LOCATION, loadStatistics.get(0).getLocationType());
+        assertEquals(Krausening.EXTENSIONS_LOCATION, loadStatistics.get(1).getLocationType());
+        assertEquals(Krausening.OVERRIDE_EXTENSIONS_LOCATION, loadStatistics.get(2).getLocationType());
+        for (LocationLoadStatistics statistics : loadStatistics) {
+            assertEquals(4, statistics.getParallelism());
+            assertTrue(statistics.getFileCount() > 0);
+        }
+    }
+
+    @Test
+    public void testLazyLoadReadsFilesOnFirstAccess() throws Exception {
+        File lazyBase = temporaryFolder.newFolder("lazy-base");
+        File lazyFile = new File(lazyBase, EXAMPLE_PROPERTIES_FILE_NAME);
+        writeProperty(lazyFile, FOO_PROPERTY_KEY, "at-load-time");
+
+        System.setProperty(Krausening.LAZY_LOAD, Boolean.TRUE.toString());
+        try {
+            Krausening krausening = getKrausening(lazyBase.getPath(), NO_LOCATION);
+            krausening.loadProperties();
+
+            writeProperty(lazyFile, FOO_PROPERTY_KEY, "at-first-access");
+            assertEquals("at-first-access",
+                    krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+
+            writeProperty(lazyFile, FOO_PROPERTY_KEY, "after-first-access");
+            assertEquals("Lazily loaded files should only be read once per load", "at-first-access",
+                    krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+            assertNull(krausening.getProperties(EMPTY_PROPERTIES));
+        } finally {
+            System.clearProperty(Krausening.LAZY_LOAD);
+        }
+    }
+
+    @Test
+    public void testLazyLoadLayersExtensionsOverBase() {
+        System.setProperty(Krausening.LAZY_LOAD, Boolean.TRUE.toString());
+        try {
+            Krausening krausening = getKrausening(BASE_PROPERTIES_LOCATION, EXTENSIONS_PROPERTIES_LOCATION,
+                    OVERRIDDEN_EXTENSIONS_LOCATION, WAR_2_PROPERTIES_SUBFOLDER);
+            krausening.loadProperties();
+            Properties properties = krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME);
+            assertEquals(FOO_PROPERTY_VALUE, properties.get(FOO_PROPERTY_KEY));
+            assertEquals(VALUE_NEW_VALUE, properties.get(KEY_NEWLY_ADDED_IN_EXTENSIONS));
+            assertEquals(WAR_2_OVERRIDDEN_PROPERTY_VALUE, properties.get(OVERRIDDEN_PROPERTY_KEY));
+        } finally {
+            System.clearProperty(Krausening.LAZY_LOAD);
+        }
+    }
+
+    @Test
+    public void testReloadOfChangedFilesReusesUnchangedFiles() throws Exception {
+        File base = temporaryFolder.newFolder("incremental-base");
+        File changedFile = new File(base, EXAMPLE_PROPERTIES_FILE_NAME);
+        File unchangedFile = new File(base, "unchanged.properties");
+        writeProperty(changedFile, FOO_PROPERTY_KEY, "before");
+        writeProperty(unchangedFile, FOO_PROPERTY_KEY, "untouched");
+
+        Krausening krausening = getKrausening(base.getPath(), NO_LOCATION);
+        krausening.loadProperties();
+        Properties unchangedProperties = krausening.getProperties("unchanged.properties");
+        long version = krausening.getSnapshotVersion();
+
+        writeProperty(changedFile, FOO_PROPERTY_KEY, "after");
+        File addedFile = new File(base, "added.properties");
+        writeProperty(addedFile, FOO_PROPERTY_KEY, "added");
+        krausening.reloadChangedFiles(new HashSet<>(Arrays.asList(changedFile, addedFile)), false);
+
+        assertTrue(krausening.getSnapshotVersion() > version);
+        assertEquals("after", krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+        assertEquals("added", krausening.getProperties("added.properties").getProperty(FOO_PROPERTY_KEY));
+        assertSame("Unchanged files should not be re-read", unchangedProperties,
+                krausening.getProperties("unchanged.properties"));
+
+        assertTrue(addedFile.delete());
+        krausening.reloadChangedFiles(Collections.<File>emptySet(), true);
+        assertNull(krausening.getProperties("added.properties"));
+    }
+
+    @Test
+    public void testWatcherReloadsChangedFiles() throws Exception {
+        File base = temporaryFolder.newFolder("watched-base");
+        File watchedFile = new File(base, EXAMPLE_PROPERTIES_FILE_NAME);
+        writeProperty(watchedFile, FOO_PROPERTY_KEY, "before");
+
+        System.setProperty(Krausening.WATCH_DEBOUNCE_MILLIS, "50");
+        Krausening krausening = getKrausening(base.getPath(), NO_LOCATION);
+        try {
+            krausening.loadProperties();
+            krausening.startWatchingForChanges();
+
+            writeProperty(watchedFile, FOO_PROPERTY_KEY, "after");
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (!"after".equals(krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(25L);
+            }
+            assertEquals("after", krausening.getProperties(EXAMPLE_PROPERTIES_FILE_NAME).getProperty(FOO_PROPERTY_KEY));
+        } finally {
+            krausening.stopWatchingForChanges();
+            System.clearProperty(Krausening.WATCH_DEBOUNCE_MILLIS);
+        }
+    }
+
 }